@@ -0,0 +1,415 @@
+package service;
+
+import entities.Category;
+import entities.ColumnarProductList;
+import entities.InputProductData;
+import entities.MappedProductList;
+import entities.OffHeapProductList;
+import entities.Product;
+import entities.ProductCatalogFile;
+import entities.ProductJournal;
+import entities.ProductList;
+import entities.ProductSnapshotFile;
+import entities.ProductStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class WarehouseBenchmark {
+    private static final String[] SYLLABLES = {"ro", "sa", "al", "ba", "lu", "mi", "ne", "da", "wn", "hel",
+            "ena", "ly", "cke", "fu", "nd", "is", "pa", "han", "gal", "li", "ca"};
+    private static final Category[] CATEGORIES = Category.values();
+    private static final LocalDate FIRST_DATE = LocalDate.parse("2022-01-01");
+    private static final int NUMBER_OF_DAYS = 3 * 365;
+
+    public enum Store {
+        LIST, COLUMNAR, OFF_HEAP, MAPPED
+    }
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int numberOfProducts;
+
+    @Param({"LIST", "COLUMNAR", "OFF_HEAP", "MAPPED"})
+    private Store store;
+
+    private List<Product> products;
+    private Path directory;
+    private Path snapshotPath;
+    private Path importPath;
+    private Path exportPath;
+    private ProductStore productStore;
+    private Warehouse warehouse;
+    private QueryExecution parallelQueryExecution;
+    private ProductStore parallelProductStore;
+    private Warehouse parallelWarehouse;
+    private UUID[] ids;
+    private int nextId;
+    private InputProductData inputProductData;
+    private List<InputProductData> inputProducts;
+    private LocalDate filterDate;
+    private Product lastSortedProduct;
+    private ProductQuery productQuery;
+
+    @Setup(Level.Trial)
+    public void setUpWarehouse() throws IOException {
+        products = generateProducts(numberOfProducts, new Random(42));
+        directory = Files.createTempDirectory("warehouse-benchmark");
+        snapshotPath = directory.resolve("products.snapshot");
+        importPath = directory.resolve("import.csv");
+        exportPath = directory.resolve("export.csv");
+        if (store == Store.MAPPED) {
+            ProductSnapshotFile.write(snapshotPath, products);
+        }
+        ProductCatalogFile.write(importPath, ProductCatalogFile.Format.CSV,
+                generateProducts(10_000, new Random(7)));
+        productStore = openStore();
+        warehouse = indexedWarehouse(productStore, QueryExecution.sequential());
+        parallelQueryExecution = QueryExecution.parallel();
+        parallelProductStore = openStore();
+        parallelWarehouse = indexedWarehouse(parallelProductStore, parallelQueryExecution);
+        ids = products.stream().map(Product::id).toArray(UUID[]::new);
+        inputProductData = new InputProductData("Hippolyte", Category.GALLICA, 10.0);
+        inputProducts = products.stream()
+                .limit(10_000)
+                .map(product -> new InputProductData(product.name(), product.category(), product.rating()))
+                .toList();
+        filterDate = FIRST_DATE.plusDays(NUMBER_OF_DAYS - 30);
+        lastSortedProduct = warehouse.getSortedProductsForACategory(Category.RAMBLER,
+                (int) warehouse.getNumberOfProductsForACategory(Category.RAMBLER) / 2, 1).product().getFirst();
+        productQuery = ProductQuery.allProducts()
+                .inCategory(Category.RAMBLER)
+                .ratedBetween(5.0, 8.0)
+                .createdBetween(filterDate.minusDays(90), filterDate)
+                .withNamePrefix("ro")
+                .limit(50);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownWarehouse() throws IOException {
+        parallelQueryExecution.close();
+        close(productStore);
+        close(parallelProductStore);
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(importPath);
+        Files.deleteIfExists(exportPath);
+        Files.delete(directory);
+    }
+
+    ProductStore openStore() throws IOException {
+        return switch (store) {
+            case LIST -> new ProductList(products);
+            case COLUMNAR -> new ColumnarProductList(products);
+            case OFF_HEAP -> new OffHeapProductList(products);
+            case MAPPED -> ProductSnapshotFile.open(snapshotPath);
+        };
+    }
+
+    static void close(ProductStore productStore) {
+        if (productStore instanceof OffHeapProductList offHeapProductList) {
+            offHeapProductList.close();
+        } else if (productStore instanceof MappedProductList mappedProductList) {
+            mappedProductList.close();
+        }
+    }
+
+    static Warehouse indexedWarehouse(ProductStore productStore, QueryExecution queryExecution) {
+        Warehouse warehouse = new Warehouse(productStore, IdGenerator.threadLocalRandom(), ProductJournal.none(),
+                queryExecution, ResultCache.disabled());
+        warehouse.getNumberOfProductsForACategory(Category.RAMBLER);
+        return warehouse;
+    }
+
+    static List<Product> generateProducts(int numberOfProducts, Random random) {
+        List<Product> products = new ArrayList<>(numberOfProducts);
+        for (int product = 0; product < numberOfProducts; product++) {
+            LocalDate createdAt = FIRST_DATE.plusDays(random.nextInt(NUMBER_OF_DAYS));
+            products.add(new Product(
+                    new UUID(random.nextLong(), random.nextLong()),
+                    generateName(random),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    Math.round(random.nextDouble() * 100) / 10.0,
+                    createdAt,
+                    random.nextBoolean() ? createdAt : createdAt.plusDays(random.nextInt(60))
+            ));
+        }
+        return products;
+    }
+
+    private static String generateName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int syllable = 2 + random.nextInt(3); syllable > 0; syllable--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private UUID nextId() {
+        UUID id = ids[nextId];
+        nextId = (nextId + 1) % ids.length;
+        return id;
+    }
+
+    @State(Scope.Thread)
+    public static class CatalogWarehouse {
+        ProductStore productStore;
+        Warehouse warehouse;
+
+        @Setup(Level.Iteration)
+        public void setUpWarehouse(WarehouseBenchmark benchmark) throws IOException {
+            productStore = benchmark.openStore();
+            warehouse = indexedWarehouse(productStore, QueryExecution.sequential());
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDownWarehouse() {
+            close(productStore);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Product createNewProduct(CatalogWarehouse catalogWarehouse) {
+        return catalogWarehouse.warehouse.createNewProduct(inputProductData);
+    }
+
+    @Benchmark
+    public Warehouse addNewProduct(CatalogWarehouse catalogWarehouse) {
+        catalogWarehouse.warehouse.addNewProduct(inputProductData);
+        return catalogWarehouse.warehouse;
+    }
+
+    @Benchmark
+    public List<Product> addNewProducts(CatalogWarehouse catalogWarehouse) {
+        return catalogWarehouse.warehouse.addNewProducts(inputProducts);
+    }
+
+    @Benchmark
+    public long importProducts(CatalogWarehouse catalogWarehouse) throws IOException {
+        return catalogWarehouse.warehouse.importProducts(importPath, ProductCatalogFile.Format.CSV, false);
+    }
+
+    @Benchmark
+    public long importProductsInParallel(CatalogWarehouse catalogWarehouse) throws IOException {
+        return catalogWarehouse.warehouse.importProducts(importPath, ProductCatalogFile.Format.CSV, true);
+    }
+
+    @Benchmark
+    public Path exportProducts() throws IOException {
+        warehouse.exportProducts(exportPath, ProductCatalogFile.Format.CSV);
+        return exportPath;
+    }
+
+    @Benchmark
+    public void getProductList(Blackhole blackhole) {
+        blackhole.consume(warehouse.getProductList());
+    }
+
+    @Benchmark
+    public Optional<Product> getAProductForItsId() {
+        return warehouse.getAProductForItsId(nextId());
+    }
+
+    @Benchmark
+    public Product changeProductNameCategoryRating(CatalogWarehouse catalogWarehouse) {
+        return catalogWarehouse.warehouse.changeProductNameCategoryRating(nextId(), inputProductData);
+    }
+
+    @Benchmark
+    public WarehouseSnapshot snapshot(CatalogWarehouse catalogWarehouse) {
+        return catalogWarehouse.warehouse.snapshot();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Map<UUID, List<Product>> getProductsPerId() {
+        return warehouse.getProductsPerId();
+    }
+
+    @Benchmark
+    public Map<UUID, List<Product>> getProductsPerIdInParallel() {
+        return parallelWarehouse.getProductsPerId();
+    }
+
+    @Benchmark
+    public Map<LocalDate, List<Product>> getProductsPerCreatedAt() {
+        return warehouse.getProductsPerCreatedAt();
+    }
+
+    @Benchmark
+    public Map<LocalDate, List<Product>> getProductsPerUpdatedAt() {
+        return warehouse.getProductsPerUpdatedAt();
+    }
+
+    @Benchmark
+    public List<Product> getFilteredProductsByDate() {
+        return warehouse.getFilteredProductsByDate(filterDate);
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedAfter() {
+        return warehouse.getProductsCreatedAfter(filterDate);
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedBefore() {
+        return warehouse.getProductsCreatedBefore(FIRST_DATE.plusDays(30));
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedBetween() {
+        return warehouse.getProductsCreatedBetween(filterDate, filterDate.plusDays(7));
+    }
+
+    @Benchmark
+    public List<Product> getProductsUpdatedAfter() {
+        return warehouse.getProductsUpdatedAfter(filterDate);
+    }
+
+    @Benchmark
+    public List<Product> getProductsUpdatedBefore() {
+        return warehouse.getProductsUpdatedBefore(FIRST_DATE.plusDays(30));
+    }
+
+    @Benchmark
+    public List<Product> getProductsUpdatedBetween() {
+        return warehouse.getProductsUpdatedBetween(filterDate, filterDate.plusDays(7));
+    }
+
+    @Benchmark
+    public List<Product> getAllUpdatedProducts() {
+        return warehouse.getAllUpdatedProducts();
+    }
+
+    @Benchmark
+    public List<Product> getAllUpdatedProductsInParallel() {
+        return parallelWarehouse.getAllUpdatedProducts();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Map<Category, List<Product>> getProductsPerCategory() {
+        return warehouse.getProductsPerCategory();
+    }
+
+    @Benchmark
+    public Warehouse.SortedProducts getSortedProductsForACategory() {
+        return warehouse.getSortedProductsForACategory(Category.RAMBLER);
+    }
+
+    @Benchmark
+    public Warehouse.SortedProducts getSortedProductsForACategoryPage() {
+        return warehouse.getSortedProductsForACategory(Category.RAMBLER, 0, 50);
+    }
+
+    @Benchmark
+    public Warehouse.SortedProducts getSortedProductsForACategoryAfter() {
+        return warehouse.getSortedProductsForACategoryAfter(Category.RAMBLER, lastSortedProduct, 50);
+    }
+
+    @Benchmark
+    public Map<Category, Long> getNumberOfProductsPerCategory() {
+        return warehouse.getNumberOfProductsPerCategory();
+    }
+
+    @Benchmark
+    public long getNumberOfProductsForACategory() {
+        return warehouse.getNumberOfProductsForACategory(Category.RAMBLER);
+    }
+
+    @Benchmark
+    public List<Category> getAllCategoriesWithProducts() {
+        return warehouse.getAllCategoriesWithProducts();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public Map<Character, List<Product>> getProductsPerFirstLetter() {
+        return warehouse.getProductsPerFirstLetter();
+    }
+
+    @Benchmark
+    public List<Product> getProductsWithNamePrefix() {
+        return warehouse.getProductsWithNamePrefix("rosa", 10);
+    }
+
+    @Benchmark
+    public List<String> autocompleteProductNames() {
+        return warehouse.autocompleteProductNames("ga", 10);
+    }
+
+    @Benchmark
+    public Map<Month, List<Product>> getProductsPerCreatedAtMonth() {
+        return warehouse.getProductsPerCreatedAtMonth();
+    }
+
+    @Benchmark
+    public List<Product> getProductsForAMonth() {
+        return warehouse.getProductsForAMonth(Month.JUNE);
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedInLastMonths() {
+        return warehouse.getProductsCreatedInLastMonths(YearMonth.from(filterDate), 3);
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedInLastWeeks() {
+        return warehouse.getProductsCreatedInLastWeeks(filterDate, 4);
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedInLastDays() {
+        return warehouse.getProductsCreatedInLastDays(filterDate, 7);
+    }
+
+    @Benchmark
+    public List<Product> getTopRatedProducts() {
+        return warehouse.getTopRatedProducts(10);
+    }
+
+    @Benchmark
+    public List<Product> getTopRatedProductsForACategory() {
+        return warehouse.getTopRatedProductsForACategory(Category.RAMBLER, 10);
+    }
+
+    @Benchmark
+    public List<Product> getTopRatedProductsForAMonth() {
+        return warehouse.getTopRatedProductsForAMonth(Month.JUNE, 10);
+    }
+
+    @Benchmark
+    public List<Product> getSortedProductsWithMaxRatingForThisMonthByCreatedAt() {
+        return warehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(new Warehouse.ThisMonth(Month.JUNE));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @Benchmark
+    public List<Product> findProducts() {
+        return warehouse.findProducts(productQuery);
+    }
+
+    @Benchmark
+    public List<Product> findProductsInParallel() {
+        return parallelWarehouse.findProducts(productQuery);
+    }
+
+    @Benchmark
+    public QueryPlan explain() {
+        return warehouse.explain(productQuery);
+    }
+}
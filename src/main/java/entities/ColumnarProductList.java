@@ -0,0 +1,292 @@
+package entities;
+
+import java.time.LocalDate;
+import java.util.*;
+
+public class ColumnarProductList implements ProductStore {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile ProductsSnapshot snapshot;
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    private int[] nameReferences = new int[CHUNK_SIZE];
+    private int[] freeNameCodes = new int[0];
+    private int numberOfFreeNameCodes;
+
+    public ColumnarProductList() {
+        this(List.of());
+    }
+
+    public ColumnarProductList(List<Product> products) {
+        this.snapshot = load(products);
+    }
+
+    @Override
+    public void addProduct(Product newProduct) {
+        ProductsSnapshot current = snapshot;
+        int size = current.size;
+        Columns[] chunks = current.chunks;
+        if ((size >>> CHUNK_SHIFT) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + Math.max(1, chunks.length >> 1));
+        }
+        if (chunks[size >>> CHUNK_SHIFT] == null) {
+            chunks[size >>> CHUNK_SHIFT] = new Columns(CHUNK_SIZE);
+        }
+        String[][] names = writeRow(chunks, current.names, size, newProduct);
+        snapshot = new ProductsSnapshot(chunks, names, size + 1,
+                current.positionsPerId.withPositionIfAbsent(newProduct.id(), size));
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        ProductsSnapshot current = snapshot;
+        int numberOfChunks = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (numberOfChunks > current.chunks.length) {
+            snapshot = new ProductsSnapshot(Arrays.copyOf(current.chunks, numberOfChunks), current.names,
+                    current.size, current.positionsPerId);
+        }
+    }
+
+    @Override
+    public Optional<Product> replaceProduct(Product updatedProduct) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(updatedProduct.id());
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Columns[] chunks = current.chunks.clone();
+        Columns chunk = chunks[position >>> CHUNK_SHIFT];
+        Product replacedProduct = chunk.product(position & CHUNK_MASK, current.names);
+        int replacedNameCode = chunk.nameCodes[position & CHUNK_MASK];
+        chunks[position >>> CHUNK_SHIFT] = chunk.copy();
+        String[][] names = writeRow(chunks, current.names, position, updatedProduct);
+        releaseName(replacedNameCode, replacedProduct.name());
+        snapshot = new ProductsSnapshot(chunks, names, current.size, current.positionsPerId);
+        return Optional.of(replacedProduct);
+    }
+
+    @Override
+    public Optional<Product> removeProduct(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product removedProduct = current.get(position);
+        int removedNameCode = current.chunks[position >>> CHUNK_SHIFT].nameCodes[position & CHUNK_MASK];
+        int lastPosition = current.size - 1;
+        Columns[] chunks = current.chunks.clone();
+        Columns lastChunk = chunks[lastPosition >>> CHUNK_SHIFT];
+        PositionsPerId positionsPerId = current.positionsPerId.without(id);
+        if (position != lastPosition) {
+            Columns chunk = chunks[position >>> CHUNK_SHIFT].copy();
+            chunk.copyRow(position & CHUNK_MASK, lastChunk, lastPosition & CHUNK_MASK);
+            chunks[position >>> CHUNK_SHIFT] = chunk;
+            UUID lastId = current.get(lastPosition).id();
+            if (current.positionsPerId.position(lastId) == lastPosition) {
+                positionsPerId = positionsPerId.withPosition(lastId, position);
+            }
+        }
+        if (chunks[lastPosition >>> CHUNK_SHIFT] == lastChunk) {
+            chunks[lastPosition >>> CHUNK_SHIFT] = lastChunk.copy();
+        }
+        releaseName(removedNameCode, removedProduct.name());
+        snapshot = new ProductsSnapshot(chunks, current.names, lastPosition, positionsPerId);
+        return Optional.of(removedProduct);
+    }
+
+    @Override
+    public Optional<Product> product(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        return position < 0 ? Optional.empty() : Optional.of(current.get(position));
+    }
+
+    @Override
+    public int position(UUID id) {
+        return snapshot.positionsPerId.position(id);
+    }
+
+    @Override
+    public Product product(int position) {
+        return snapshot.get(position);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public List<Product> products() {
+        return snapshot;
+    }
+
+    @Override
+    public ProductStore frozen() {
+        ProductsSnapshot current = snapshot;
+        return new FrozenProductStore(current, current.positionsPerId::position);
+    }
+
+    public int numberOfDistinctNames() {
+        return nameCodes.size();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private ProductsSnapshot load(List<Product> products) {
+        int size = products.size();
+        Columns[] chunks = new Columns[(size + CHUNK_MASK) >>> CHUNK_SHIFT];
+        String[][] names = new String[0][];
+        long[] idBits = new long[size << 1];
+        int position = 0;
+        for (Product product : products) {
+            if ((position & CHUNK_MASK) == 0) {
+                chunks[position >>> CHUNK_SHIFT] = new Columns(CHUNK_SIZE);
+            }
+            names = writeRow(chunks, names, position, product);
+            idBits[position << 1] = product.id().getMostSignificantBits();
+            idBits[(position << 1) + 1] = product.id().getLeastSignificantBits();
+            position++;
+        }
+        return new ProductsSnapshot(chunks, names, size, PositionsPerId.of(idBits, size));
+    }
+
+    private String[][] writeRow(Columns[] chunks, String[][] names, int position, Product product) {
+        Columns columns = chunks[position >>> CHUNK_SHIFT];
+        int row = position & CHUNK_MASK;
+        Integer nameCode = nameCodes.get(product.name());
+        if (nameCode == null) {
+            nameCode = numberOfFreeNameCodes > 0 ? freeNameCodes[--numberOfFreeNameCodes] : nameCodes.size();
+            names = withName(names, nameCode, product.name());
+            nameCodes.put(product.name(), nameCode);
+        }
+        nameReferences[nameCode]++;
+        columns.idMostSignificantBits[row] = product.id().getMostSignificantBits();
+        columns.idLeastSignificantBits[row] = product.id().getLeastSignificantBits();
+        columns.nameCodes[row] = nameCode;
+        columns.categoryOrdinals[row] = (byte) product.category().ordinal();
+        columns.ratings[row] = product.rating();
+        columns.createdAtEpochDays[row] = Math.toIntExact(product.createdAt().toEpochDay());
+        columns.updatedAtEpochDays[row] = Math.toIntExact(product.updatedAt().toEpochDay());
+        return names;
+    }
+
+    private String[][] withName(String[][] names, int nameCode, String name) {
+        int chunkIndex = nameCode >>> CHUNK_SHIFT;
+        if (chunkIndex == names.length) {
+            names = Arrays.copyOf(names, names.length + Math.max(1, names.length >> 1));
+        }
+        if (nameCode >= nameReferences.length) {
+            nameReferences = Arrays.copyOf(nameReferences, nameReferences.length << 1);
+        }
+        String[] nameChunk = names[chunkIndex];
+        if (nameChunk == null) {
+            names[chunkIndex] = new String[CHUNK_SIZE];
+        } else if (nameChunk[nameCode & CHUNK_MASK] != null) {
+            names = names.clone();
+            names[chunkIndex] = nameChunk.clone();
+        }
+        names[chunkIndex][nameCode & CHUNK_MASK] = name;
+        return names;
+    }
+
+    private void releaseName(int nameCode, String name) {
+        if (--nameReferences[nameCode] == 0) {
+            nameCodes.remove(name);
+            if (numberOfFreeNameCodes == freeNameCodes.length) {
+                freeNameCodes = Arrays.copyOf(freeNameCodes, Math.max(16, numberOfFreeNameCodes << 1));
+            }
+            freeNameCodes[numberOfFreeNameCodes++] = nameCode;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class Columns {
+        private final long[] idMostSignificantBits;
+        private final long[] idLeastSignificantBits;
+        private final int[] nameCodes;
+        private final byte[] categoryOrdinals;
+        private final double[] ratings;
+        private final int[] createdAtEpochDays;
+        private final int[] updatedAtEpochDays;
+
+        private Columns(int capacity) {
+            this(new long[capacity], new long[capacity], new int[capacity], new byte[capacity],
+                    new double[capacity], new int[capacity], new int[capacity]);
+        }
+
+        private Columns(long[] idMostSignificantBits, long[] idLeastSignificantBits, int[] nameCodes,
+                        byte[] categoryOrdinals, double[] ratings, int[] createdAtEpochDays,
+                        int[] updatedAtEpochDays) {
+            this.idMostSignificantBits = idMostSignificantBits;
+            this.idLeastSignificantBits = idLeastSignificantBits;
+            this.nameCodes = nameCodes;
+            this.categoryOrdinals = categoryOrdinals;
+            this.ratings = ratings;
+            this.createdAtEpochDays = createdAtEpochDays;
+            this.updatedAtEpochDays = updatedAtEpochDays;
+        }
+
+        private Columns copy() {
+            int capacity = ratings.length;
+            return new Columns(
+                    Arrays.copyOf(idMostSignificantBits, capacity),
+                    Arrays.copyOf(idLeastSignificantBits, capacity),
+                    Arrays.copyOf(nameCodes, capacity),
+                    Arrays.copyOf(categoryOrdinals, capacity),
+                    Arrays.copyOf(ratings, capacity),
+                    Arrays.copyOf(createdAtEpochDays, capacity),
+                    Arrays.copyOf(updatedAtEpochDays, capacity)
+            );
+        }
+
+        private void copyRow(int row, Columns source, int sourceRow) {
+            idMostSignificantBits[row] = source.idMostSignificantBits[sourceRow];
+            idLeastSignificantBits[row] = source.idLeastSignificantBits[sourceRow];
+            nameCodes[row] = source.nameCodes[sourceRow];
+            categoryOrdinals[row] = source.categoryOrdinals[sourceRow];
+            ratings[row] = source.ratings[sourceRow];
+            createdAtEpochDays[row] = source.createdAtEpochDays[sourceRow];
+            updatedAtEpochDays[row] = source.updatedAtEpochDays[sourceRow];
+        }
+
+        private Product product(int position, String[][] names) {
+            int nameCode = nameCodes[position];
+            return new Product(
+                    new UUID(idMostSignificantBits[position], idLeastSignificantBits[position]),
+                    names[nameCode >>> CHUNK_SHIFT][nameCode & CHUNK_MASK],
+                    CATEGORIES[categoryOrdinals[position]],
+                    ratings[position],
+                    LocalDate.ofEpochDay(createdAtEpochDays[position]),
+                    LocalDate.ofEpochDay(updatedAtEpochDays[position])
+            );
+        }
+    }
+
+    private static final class ProductsSnapshot extends AbstractList<Product> implements RandomAccess {
+        private final Columns[] chunks;
+        private final String[][] names;
+        private final int size;
+        private final PositionsPerId positionsPerId;
+
+        private ProductsSnapshot(Columns[] chunks, String[][] names, int size, PositionsPerId positionsPerId) {
+            this.chunks = chunks;
+            this.names = names;
+            this.size = size;
+            this.positionsPerId = positionsPerId;
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, size);
+            return chunks[index >>> CHUNK_SHIFT].product(index & CHUNK_MASK, names);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package entities;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+final class FrozenProductStore implements ProductStore {
+    private final List<Product> products;
+    private volatile ToIntFunction<UUID> positionsPerId;
+
+    FrozenProductStore(List<Product> products, ToIntFunction<UUID> positionsPerId) {
+        this.products = products;
+        this.positionsPerId = positionsPerId;
+    }
+
+    @Override
+    public void addProduct(Product newProduct) {
+        throw new UnsupportedOperationException("snapshots are read-only");
+    }
+
+    @Override
+    public Optional<Product> replaceProduct(Product updatedProduct) {
+        throw new UnsupportedOperationException("snapshots are read-only");
+    }
+
+    @Override
+    public Optional<Product> removeProduct(UUID id) {
+        throw new UnsupportedOperationException("snapshots are read-only");
+    }
+
+    @Override
+    public Optional<Product> product(UUID id) {
+        int position = position(id);
+        return position < 0 ? Optional.empty() : Optional.of(products.get(position));
+    }
+
+    @Override
+    public int position(UUID id) {
+        ToIntFunction<UUID> positions = positionsPerId;
+        if (positions == null) {
+            synchronized (this) {
+                positions = positionsPerId;
+                if (positions == null) {
+                    long[] idBits = new long[products.size() << 1];
+                    for (int position = 0; position < products.size(); position++) {
+                        UUID productId = products.get(position).id();
+                        idBits[position << 1] = productId.getMostSignificantBits();
+                        idBits[(position << 1) + 1] = productId.getLeastSignificantBits();
+                    }
+                    positions = PositionsPerId.of(idBits, products.size())::position;
+                    positionsPerId = positions;
+                }
+            }
+        }
+        return positions.applyAsInt(id);
+    }
+
+    @Override
+    public Product product(int position) {
+        return products.get(position);
+    }
+
+    @Override
+    public int size() {
+        return products.size();
+    }
+
+    @Override
+    public List<Product> products() {
+        return products;
+    }
+
+    @Override
+    public ProductStore frozen() {
+        return this;
+    }
+}
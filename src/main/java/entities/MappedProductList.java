@@ -0,0 +1,294 @@
+package entities;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static entities.ProductSnapshotFile.*;
+
+public class MappedProductList implements ProductStore, AutoCloseable {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int numberOfMappedProducts;
+    private final long stringTableOffset;
+    private final long idSlotsOffset;
+    private final int idSlotMask;
+    private final Map<String, OrderSection> productOrders;
+    private final ProductsSnapshot mappedSnapshot;
+
+    private volatile ProductsSnapshot snapshot;
+
+    MappedProductList(Arena arena, MemorySegment segment, Map<String, OrderSection> productOrders) {
+        this.arena = arena;
+        this.segment = segment;
+        this.numberOfMappedProducts = (int) segment.get(LONG, ROW_COUNT_OFFSET);
+        this.stringTableOffset = HEADER_SIZE + numberOfMappedProducts * ROW_SIZE;
+        this.idSlotsOffset = idSlotsOffset(numberOfMappedProducts, segment.get(LONG, STRING_TABLE_SIZE_OFFSET));
+        this.idSlotMask = (int) segment.get(LONG, ID_SLOT_COUNT_OFFSET) - 1;
+        this.productOrders = Map.copyOf(productOrders);
+        this.mappedSnapshot = new ProductsSnapshot(this,
+                new Product[(numberOfMappedProducts + CHUNK_SIZE - 1) >> CHUNK_SHIFT][], new Product[0][],
+                numberOfMappedProducts, PositionsPerId.EMPTY);
+        this.snapshot = mappedSnapshot;
+    }
+
+    @Override
+    public void addProduct(Product newProduct) {
+        ProductsSnapshot current = snapshot;
+        Product[][] changedChunks = current.changedChunks;
+        Product[][] addedChunks = current.addedChunks;
+        if (current.size < numberOfMappedProducts) {
+            changedChunks = withProduct(changedChunks, current.size, newProduct);
+        } else {
+            int addedPosition = current.size - numberOfMappedProducts;
+            if ((addedPosition >>> CHUNK_SHIFT) == addedChunks.length) {
+                addedChunks = Arrays.copyOf(addedChunks, addedChunks.length + Math.max(1, addedChunks.length >> 1));
+            }
+            if (addedChunks[addedPosition >>> CHUNK_SHIFT] == null) {
+                addedChunks[addedPosition >>> CHUNK_SHIFT] = new Product[CHUNK_SIZE];
+            }
+            addedChunks[addedPosition >>> CHUNK_SHIFT][addedPosition & CHUNK_MASK] = newProduct;
+        }
+        PositionsPerId positionsPerId = current.position(newProduct.id()) < 0
+                ? current.positionsPerId.withPositionIfAbsent(newProduct.id(), current.size)
+                : current.positionsPerId;
+        snapshot = new ProductsSnapshot(this, changedChunks, addedChunks, current.size + 1, positionsPerId);
+    }
+
+    @Override
+    public Optional<Product> replaceProduct(Product updatedProduct) {
+        ProductsSnapshot current = snapshot;
+        int position = current.position(updatedProduct.id());
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product replacedProduct = current.get(position);
+        Product[][] changedChunks = current.changedChunks;
+        Product[][] addedChunks = current.addedChunks;
+        if (position < numberOfMappedProducts) {
+            changedChunks = withProduct(changedChunks, position, updatedProduct);
+        } else {
+            addedChunks = withProduct(addedChunks, position - numberOfMappedProducts, updatedProduct);
+        }
+        snapshot = new ProductsSnapshot(this, changedChunks, addedChunks, current.size, current.positionsPerId);
+        return Optional.of(replacedProduct);
+    }
+
+    @Override
+    public Optional<Product> removeProduct(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.position(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product removedProduct = current.get(position);
+        int lastPosition = current.size - 1;
+        Product[][] changedChunks = current.changedChunks;
+        Product[][] addedChunks = current.addedChunks;
+        PositionsPerId positionsPerId = current.positionsPerId.without(id);
+        if (position != lastPosition) {
+            Product lastProduct = current.get(lastPosition);
+            if (position < numberOfMappedProducts) {
+                changedChunks = withProduct(changedChunks, position, lastProduct);
+            } else {
+                addedChunks = withProduct(addedChunks, position - numberOfMappedProducts, lastProduct);
+            }
+            if (current.position(lastProduct.id()) == lastPosition) {
+                positionsPerId = positionsPerId.withPosition(lastProduct.id(), position);
+            }
+        }
+        if (lastPosition < numberOfMappedProducts) {
+            changedChunks = withProduct(changedChunks, lastPosition, null);
+        } else {
+            addedChunks = withProduct(addedChunks, lastPosition - numberOfMappedProducts, null);
+        }
+        snapshot = new ProductsSnapshot(this, changedChunks, addedChunks, lastPosition, positionsPerId);
+        return Optional.of(removedProduct);
+    }
+
+    @Override
+    public Optional<Product> product(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.position(id);
+        return position < 0 ? Optional.empty() : Optional.of(current.get(position));
+    }
+
+    @Override
+    public int position(UUID id) {
+        return snapshot.position(id);
+    }
+
+    @Override
+    public Product product(int position) {
+        return snapshot.get(position);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public List<Product> products() {
+        return snapshot;
+    }
+
+    @Override
+    public Optional<ProductOrder> productOrder(String name) {
+        OrderSection orderSection = productOrders.get(name);
+        if (orderSection == null || snapshot != mappedSnapshot) {
+            return Optional.empty();
+        }
+        int[] positions = new int[orderSection.numberOfPositions()];
+        int[] groupEnds = new int[orderSection.numberOfGroups()];
+        MemorySegment.copy(segment, INT, orderSection.positionsOffset(), positions, 0, positions.length);
+        MemorySegment.copy(segment, INT, orderSection.positionsOffset() + (long) positions.length * Integer.BYTES,
+                groupEnds, 0, groupEnds.length);
+        for (int position : positions) {
+            if (position < 0 || position >= numberOfMappedProducts) {
+                return Optional.empty();
+            }
+        }
+        int groupStart = 0;
+        for (int groupEnd : groupEnds) {
+            if (groupEnd <= groupStart || groupEnd > positions.length) {
+                return Optional.empty();
+            }
+            groupStart = groupEnd;
+        }
+        return groupStart == positions.length ? Optional.of(new ProductOrder(positions, groupEnds)) : Optional.empty();
+    }
+
+    @Override
+    public ProductStore frozen() {
+        ProductsSnapshot current = snapshot;
+        return new FrozenProductStore(current, current::position);
+    }
+
+    public int numberOfMappedProducts() {
+        return numberOfMappedProducts;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static long rowOffset(int position) {
+        return HEADER_SIZE + position * ROW_SIZE;
+    }
+
+    private static Product[][] withProduct(Product[][] chunks, int index, Product product) {
+        Product[][] newChunks = chunks.clone();
+        Product[] chunk = newChunks[index >>> CHUNK_SHIFT];
+        chunk = chunk == null ? new Product[CHUNK_SIZE] : chunk.clone();
+        chunk[index & CHUNK_MASK] = product;
+        newChunks[index >>> CHUNK_SHIFT] = chunk;
+        return newChunks;
+    }
+
+    private int mappedPosition(UUID id) {
+        long mostSignificantBits = id.getMostSignificantBits();
+        long leastSignificantBits = id.getLeastSignificantBits();
+        int slot = idSlot(mostSignificantBits, leastSignificantBits, idSlotMask);
+        for (int probes = 0; probes <= idSlotMask; probes++) {
+            int position = segment.get(INT, idSlotsOffset + (long) slot * Integer.BYTES) - 1;
+            if (position < 0) {
+                return -1;
+            }
+            long rowOffset = rowOffset(position);
+            if (segment.get(LONG, rowOffset + ID_MOST_SIGNIFICANT_BITS) == mostSignificantBits
+                    && segment.get(LONG, rowOffset + ID_LEAST_SIGNIFICANT_BITS) == leastSignificantBits) {
+                return position;
+            }
+            slot = (slot + 1) & idSlotMask;
+        }
+        return -1;
+    }
+
+    private Product product(int position, Product[][] changedChunks, Product[][] addedChunks) {
+        if (position >= numberOfMappedProducts) {
+            int addedPosition = position - numberOfMappedProducts;
+            return addedChunks[addedPosition >>> CHUNK_SHIFT][addedPosition & CHUNK_MASK];
+        }
+        Product[] changedChunk = changedChunks[position >> CHUNK_SHIFT];
+        Product changedProduct = changedChunk == null ? null : changedChunk[position & CHUNK_MASK];
+        return changedProduct != null ? changedProduct : mappedProduct(position);
+    }
+
+    private Product mappedProduct(int position) {
+        long rowOffset = rowOffset(position);
+        return new Product(
+                new UUID(segment.get(LONG, rowOffset + ID_MOST_SIGNIFICANT_BITS),
+                        segment.get(LONG, rowOffset + ID_LEAST_SIGNIFICANT_BITS)),
+                name(segment.get(LONG, rowOffset + NAME_OFFSET), segment.get(INT, rowOffset + NAME_LENGTH)),
+                CATEGORIES[segment.get(ValueLayout.JAVA_BYTE, rowOffset + CATEGORY_ORDINAL)],
+                segment.get(DOUBLE, rowOffset + RATING),
+                LocalDate.ofEpochDay(segment.get(INT, rowOffset + CREATED_AT_EPOCH_DAY)),
+                LocalDate.ofEpochDay(segment.get(INT, rowOffset + UPDATED_AT_EPOCH_DAY))
+        );
+    }
+
+    private String name(long nameOffset, int nameLength) {
+        byte[] name = new byte[nameLength];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, stringTableOffset + nameOffset, name, 0, nameLength);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private static final class ProductsSnapshot extends AbstractList<Product> implements RandomAccess {
+        private final MappedProductList productList;
+        private final Product[][] changedChunks;
+        private final Product[][] addedChunks;
+        private final int size;
+        // Positions of the added products and of the mapped products that were moved by a removal. A mapped
+        // position only counts while its slot still holds the mapped product.
+        private final PositionsPerId positionsPerId;
+
+        private ProductsSnapshot(MappedProductList productList, Product[][] changedChunks, Product[][] addedChunks,
+                                 int size, PositionsPerId positionsPerId) {
+            this.productList = productList;
+            this.changedChunks = changedChunks;
+            this.addedChunks = addedChunks;
+            this.size = size;
+            this.positionsPerId = positionsPerId;
+        }
+
+        private int position(UUID id) {
+            int position = positionsPerId.position(id);
+            if (position >= 0) {
+                return position;
+            }
+            position = productList.mappedPosition(id);
+            return position >= 0 && holdsMappedProduct(position, id) ? position : -1;
+        }
+
+        private boolean holdsMappedProduct(int position, UUID id) {
+            if (position >= size) {
+                return false;
+            }
+            Product[] changedChunk = changedChunks[position >> CHUNK_SHIFT];
+            Product changedProduct = changedChunk == null ? null : changedChunk[position & CHUNK_MASK];
+            return changedProduct == null || changedProduct.id().equals(id);
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, size);
+            return productList.product(index, changedChunks, addedChunks);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package entities;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+public class OffHeapProductList implements ProductStore, AutoCloseable {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private static final long ROW_SIZE = 48;
+    private static final long ID_MOST_SIGNIFICANT_BITS = 0;
+    private static final long ID_LEAST_SIGNIFICANT_BITS = 8;
+    private static final long RATING = 16;
+    private static final long NAME_OFFSET = 24;
+    private static final long NAME_LENGTH = 32;
+    private static final long CREATED_AT_EPOCH_DAY = 36;
+    private static final long UPDATED_AT_EPOCH_DAY = 40;
+    private static final long CATEGORY_ORDINAL = 44;
+
+    private static final int ROWS_PER_CHUNK = 1 << 16;
+    private static final long NAME_CHUNK_SIZE = 1 << 20;
+    private static final int POSITION_CHUNK_SHIFT = 10;
+    private static final int POSITION_CHUNK_SIZE = 1 << POSITION_CHUNK_SHIFT;
+    private static final int POSITION_CHUNK_MASK = POSITION_CHUNK_SIZE - 1;
+
+    // Rows are append-only: a published row is never written again, so a reader holding any snapshot sees
+    // whole products. Replaced rows are reclaimed by compacting the live rows into a fresh arena; the memory
+    // of the previous arena is released once no snapshot reaches it any more.
+    private Arena arena = Arena.ofAuto();
+    private volatile ProductsSnapshot snapshot;
+    private MemorySegment nameChunk = MemorySegment.NULL;
+    private long nameChunkPosition;
+    private int numberOfRows;
+
+    private record WrittenRow(int row, MemorySegment[] rowChunks, MemorySegment[] nameSegments) {
+    }
+
+    public OffHeapProductList() {
+        this(List.of());
+    }
+
+    public OffHeapProductList(List<Product> products) {
+        this.snapshot = load(products);
+    }
+
+    @Override
+    public void addProduct(Product newProduct) {
+        ProductsSnapshot current = snapshot;
+        int size = current.size;
+        int[][] positionChunks = current.positionChunks;
+        if ((size >>> POSITION_CHUNK_SHIFT) == positionChunks.length) {
+            positionChunks = Arrays.copyOf(positionChunks,
+                    positionChunks.length + Math.max(1, positionChunks.length >> 1));
+        }
+        if (positionChunks[size >>> POSITION_CHUNK_SHIFT] == null) {
+            positionChunks[size >>> POSITION_CHUNK_SHIFT] = new int[POSITION_CHUNK_SIZE];
+        }
+        WrittenRow written = writeRow(current.rowChunks, current.nameSegments, newProduct);
+        positionChunks[size >>> POSITION_CHUNK_SHIFT][size & POSITION_CHUNK_MASK] = written.row();
+        snapshot = new ProductsSnapshot(written.rowChunks(), written.nameSegments(), positionChunks, size + 1,
+                current.positionsPerId.withPositionIfAbsent(newProduct.id(), size));
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        ProductsSnapshot current = snapshot;
+        int numberOfChunks = (capacity + POSITION_CHUNK_MASK) >>> POSITION_CHUNK_SHIFT;
+        if (numberOfChunks > current.positionChunks.length) {
+            snapshot = new ProductsSnapshot(current.rowChunks, current.nameSegments,
+                    Arrays.copyOf(current.positionChunks, numberOfChunks), current.size, current.positionsPerId);
+        }
+    }
+
+    @Override
+    public Optional<Product> replaceProduct(Product updatedProduct) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(updatedProduct.id());
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product replacedProduct = current.get(position);
+        if (numberOfRows - current.size >= Math.max(current.size, ROWS_PER_CHUNK)) {
+            current = compacted(current);
+        }
+        WrittenRow written = writeRow(current.rowChunks, current.nameSegments, updatedProduct);
+        int[][] positionChunks = current.positionChunks.clone();
+        int[] positionChunk = positionChunks[position >>> POSITION_CHUNK_SHIFT].clone();
+        positionChunk[position & POSITION_CHUNK_MASK] = written.row();
+        positionChunks[position >>> POSITION_CHUNK_SHIFT] = positionChunk;
+        snapshot = new ProductsSnapshot(written.rowChunks(), written.nameSegments(), positionChunks, current.size,
+                current.positionsPerId);
+        return Optional.of(replacedProduct);
+    }
+
+    @Override
+    public Optional<Product> removeProduct(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product removedProduct = current.get(position);
+        if (numberOfRows - current.size >= Math.max(current.size, ROWS_PER_CHUNK)) {
+            current = compacted(current);
+        }
+        int lastPosition = current.size - 1;
+        int[][] positionChunks = current.positionChunks.clone();
+        positionChunks[lastPosition >>> POSITION_CHUNK_SHIFT] =
+                positionChunks[lastPosition >>> POSITION_CHUNK_SHIFT].clone();
+        PositionsPerId positionsPerId = current.positionsPerId.without(id);
+        if (position != lastPosition) {
+            int[] positionChunk = positionChunks[position >>> POSITION_CHUNK_SHIFT];
+            if ((position >>> POSITION_CHUNK_SHIFT) != (lastPosition >>> POSITION_CHUNK_SHIFT)) {
+                positionChunk = positionChunk.clone();
+            }
+            positionChunk[position & POSITION_CHUNK_MASK] = current.row(lastPosition);
+            positionChunks[position >>> POSITION_CHUNK_SHIFT] = positionChunk;
+            UUID lastId = current.get(lastPosition).id();
+            if (current.positionsPerId.position(lastId) == lastPosition) {
+                positionsPerId = positionsPerId.withPosition(lastId, position);
+            }
+        }
+        snapshot = new ProductsSnapshot(current.rowChunks, current.nameSegments, positionChunks, lastPosition,
+                positionsPerId);
+        return Optional.of(removedProduct);
+    }
+
+    @Override
+    public Optional<Product> product(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        return position < 0 ? Optional.empty() : Optional.of(current.get(position));
+    }
+
+    @Override
+    public int position(UUID id) {
+        return snapshot.positionsPerId.position(id);
+    }
+
+    @Override
+    public Product product(int position) {
+        return snapshot.get(position);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public List<Product> products() {
+        return snapshot;
+    }
+
+    @Override
+    public ProductStore frozen() {
+        ProductsSnapshot current = snapshot;
+        return new FrozenProductStore(current, current.positionsPerId::position);
+    }
+
+    public long numberOfBytes() {
+        ProductsSnapshot current = snapshot;
+        long numberOfNameBytes = Arrays.stream(current.nameSegments).mapToLong(MemorySegment::byteSize).sum();
+        return (long) current.rowChunks.length * ROWS_PER_CHUNK * ROW_SIZE + numberOfNameBytes;
+    }
+
+    @Override
+    public void close() {
+        startArena();
+        snapshot = load(List.of());
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static long rowOffset(int row) {
+        return (row % ROWS_PER_CHUNK) * ROW_SIZE;
+    }
+
+    private ProductsSnapshot load(List<Product> products) {
+        int size = products.size();
+        MemorySegment[] rowChunks = new MemorySegment[0];
+        MemorySegment[] nameSegments = new MemorySegment[0];
+        int[][] positionChunks = new int[(size + POSITION_CHUNK_MASK) >>> POSITION_CHUNK_SHIFT][];
+        long[] idBits = new long[size << 1];
+        int position = 0;
+        for (Product product : products) {
+            if ((position & POSITION_CHUNK_MASK) == 0) {
+                positionChunks[position >>> POSITION_CHUNK_SHIFT] = new int[POSITION_CHUNK_SIZE];
+            }
+            WrittenRow written = writeRow(rowChunks, nameSegments, product);
+            rowChunks = written.rowChunks();
+            nameSegments = written.nameSegments();
+            positionChunks[position >>> POSITION_CHUNK_SHIFT][position & POSITION_CHUNK_MASK] = written.row();
+            idBits[position << 1] = product.id().getMostSignificantBits();
+            idBits[(position << 1) + 1] = product.id().getLeastSignificantBits();
+            position++;
+        }
+        return new ProductsSnapshot(rowChunks, nameSegments, positionChunks, size, PositionsPerId.of(idBits, size));
+    }
+
+    private void startArena() {
+        arena = Arena.ofAuto();
+        nameChunk = MemorySegment.NULL;
+        nameChunkPosition = 0;
+        numberOfRows = 0;
+    }
+
+    private ProductsSnapshot compacted(ProductsSnapshot current) {
+        startArena();
+        MemorySegment[] rowChunks = new MemorySegment[0];
+        MemorySegment[] nameSegments = new MemorySegment[0];
+        int[][] positionChunks = new int[current.positionChunks.length][];
+        for (int position = 0; position < current.size; position++) {
+            if ((position & POSITION_CHUNK_MASK) == 0) {
+                positionChunks[position >>> POSITION_CHUNK_SHIFT] = new int[POSITION_CHUNK_SIZE];
+            }
+            WrittenRow written = writeRow(rowChunks, nameSegments, current.get(position));
+            rowChunks = written.rowChunks();
+            nameSegments = written.nameSegments();
+            positionChunks[position >>> POSITION_CHUNK_SHIFT][position & POSITION_CHUNK_MASK] = written.row();
+        }
+        return new ProductsSnapshot(rowChunks, nameSegments, positionChunks, current.size, current.positionsPerId);
+    }
+
+    private WrittenRow writeRow(MemorySegment[] rowChunks, MemorySegment[] nameSegments, Product product) {
+        byte[] name = product.name().getBytes(StandardCharsets.UTF_8);
+        int row = numberOfRows++;
+        if (row % ROWS_PER_CHUNK == 0) {
+            rowChunks = Arrays.copyOf(rowChunks, rowChunks.length + 1);
+            rowChunks[rowChunks.length - 1] = arena.allocate(ROWS_PER_CHUNK * ROW_SIZE, Long.BYTES);
+        }
+        long nameOffset = 0;
+        if (name.length > 0) {
+            if (nameChunkPosition + name.length > nameChunk.byteSize()) {
+                nameChunk = arena.allocate(Math.max(NAME_CHUNK_SIZE, name.length), 1);
+                nameSegments = Arrays.copyOf(nameSegments, nameSegments.length + 1);
+                nameSegments[nameSegments.length - 1] = nameChunk;
+                nameChunkPosition = 0;
+            }
+            nameOffset = ((long) (nameSegments.length - 1) << 32) | nameChunkPosition;
+            MemorySegment.copy(MemorySegment.ofArray(name), 0, nameChunk, nameChunkPosition, name.length);
+            nameChunkPosition += name.length;
+        }
+
+        MemorySegment rowChunk = rowChunks[row / ROWS_PER_CHUNK];
+        long rowOffset = rowOffset(row);
+        rowChunk.set(ValueLayout.JAVA_LONG, rowOffset + ID_MOST_SIGNIFICANT_BITS,
+                product.id().getMostSignificantBits());
+        rowChunk.set(ValueLayout.JAVA_LONG, rowOffset + ID_LEAST_SIGNIFICANT_BITS,
+                product.id().getLeastSignificantBits());
+        rowChunk.set(ValueLayout.JAVA_DOUBLE, rowOffset + RATING, product.rating());
+        rowChunk.set(ValueLayout.JAVA_LONG, rowOffset + NAME_OFFSET, nameOffset);
+        rowChunk.set(ValueLayout.JAVA_INT, rowOffset + NAME_LENGTH, name.length);
+        rowChunk.set(ValueLayout.JAVA_INT, rowOffset + CREATED_AT_EPOCH_DAY,
+                Math.toIntExact(product.createdAt().toEpochDay()));
+        rowChunk.set(ValueLayout.JAVA_INT, rowOffset + UPDATED_AT_EPOCH_DAY,
+                Math.toIntExact(product.updatedAt().toEpochDay()));
+        rowChunk.set(ValueLayout.JAVA_BYTE, rowOffset + CATEGORY_ORDINAL, (byte) product.category().ordinal());
+        return new WrittenRow(row, rowChunks, nameSegments);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class ProductsSnapshot extends AbstractList<Product> implements RandomAccess {
+        private final MemorySegment[] rowChunks;
+        private final MemorySegment[] nameSegments;
+        private final int[][] positionChunks;
+        private final int size;
+        private final PositionsPerId positionsPerId;
+
+        private ProductsSnapshot(MemorySegment[] rowChunks, MemorySegment[] nameSegments, int[][] positionChunks,
+                                 int size, PositionsPerId positionsPerId) {
+            this.rowChunks = rowChunks;
+            this.nameSegments = nameSegments;
+            this.positionChunks = positionChunks;
+            this.size = size;
+            this.positionsPerId = positionsPerId;
+        }
+
+        private int row(int position) {
+            return positionChunks[position >>> POSITION_CHUNK_SHIFT][position & POSITION_CHUNK_MASK];
+        }
+
+        private String readName(long nameOffset, int nameLength) {
+            if (nameLength == 0) {
+                return "";
+            }
+            MemorySegment nameSegment = nameSegments[(int) (nameOffset >>> 32)];
+            byte[] name = new byte[nameLength];
+            MemorySegment.copy(nameSegment, ValueLayout.JAVA_BYTE, nameOffset & 0xFFFF_FFFFL, name, 0, nameLength);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        private Product readRow(int row) {
+            MemorySegment rowChunk = rowChunks[row / ROWS_PER_CHUNK];
+            long rowOffset = rowOffset(row);
+            return new Product(
+                    new UUID(rowChunk.get(ValueLayout.JAVA_LONG, rowOffset + ID_MOST_SIGNIFICANT_BITS),
+                            rowChunk.get(ValueLayout.JAVA_LONG, rowOffset + ID_LEAST_SIGNIFICANT_BITS)),
+                    readName(rowChunk.get(ValueLayout.JAVA_LONG, rowOffset + NAME_OFFSET),
+                            rowChunk.get(ValueLayout.JAVA_INT, rowOffset + NAME_LENGTH)),
+                    CATEGORIES[rowChunk.get(ValueLayout.JAVA_BYTE, rowOffset + CATEGORY_ORDINAL)],
+                    rowChunk.get(ValueLayout.JAVA_DOUBLE, rowOffset + RATING),
+                    LocalDate.ofEpochDay(rowChunk.get(ValueLayout.JAVA_INT, rowOffset + CREATED_AT_EPOCH_DAY)),
+                    LocalDate.ofEpochDay(rowChunk.get(ValueLayout.JAVA_INT, rowOffset + UPDATED_AT_EPOCH_DAY))
+            );
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, size);
+            return readRow(row(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package entities;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+final class PositionsPerId {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int HASH_BITS = Long.SIZE;
+    private static final Node EMPTY_NODE = new Node(0, 0, new long[0], new int[0], new Node[0]);
+
+    static final PositionsPerId EMPTY = new PositionsPerId(EMPTY_NODE, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PositionsPerId(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static PositionsPerId of(long[] idBits, int numberOfIds) {
+        if (numberOfIds == 0) {
+            return EMPTY;
+        }
+        long[] hashes = new long[numberOfIds];
+        int[] positions = new int[numberOfIds];
+        for (int position = 0; position < numberOfIds; position++) {
+            hashes[position] = hash(idBits[position << 1], idBits[(position << 1) + 1]);
+            positions[position] = position;
+        }
+        int[] size = new int[1];
+        Node root = build(idBits, hashes, positions, 0, numberOfIds, 0, size);
+        return new PositionsPerId(root, size[0]);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int position(UUID id) {
+        return position(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    int position(long mostSignificantBits, long leastSignificantBits) {
+        long hash = hash(mostSignificantBits, leastSignificantBits);
+        Node node = root;
+        for (int shift = 0; shift < HASH_BITS; shift += BITS_PER_LEVEL) {
+            int bit = bit(hash, shift);
+            if ((node.dataMap & bit) != 0) {
+                int index = node.dataIndex(bit);
+                return node.hasId(index, mostSignificantBits, leastSignificantBits) ? node.positions[index] : -1;
+            }
+            if ((node.nodeMap & bit) == 0) {
+                return -1;
+            }
+            node = node.nodes[node.nodeIndex(bit)];
+        }
+        int index = node.collisionIndex(mostSignificantBits, leastSignificantBits);
+        return index < 0 ? -1 : node.positions[index];
+    }
+
+    PositionsPerId withPositionIfAbsent(UUID id, int newPosition) {
+        return with(id.getMostSignificantBits(), id.getLeastSignificantBits(), newPosition, false);
+    }
+
+    PositionsPerId withPosition(UUID id, int newPosition) {
+        return with(id.getMostSignificantBits(), id.getLeastSignificantBits(), newPosition, true);
+    }
+
+    PositionsPerId without(UUID id) {
+        long mostSignificantBits = id.getMostSignificantBits();
+        long leastSignificantBits = id.getLeastSignificantBits();
+        Node newRoot = root.without(hash(mostSignificantBits, leastSignificantBits), 0, mostSignificantBits,
+                leastSignificantBits);
+        return newRoot == root ? this : new PositionsPerId(newRoot == null ? EMPTY_NODE : newRoot, size - 1);
+    }
+
+    private PositionsPerId with(long mostSignificantBits, long leastSignificantBits, int newPosition,
+                                boolean replace) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.with(hash(mostSignificantBits, leastSignificantBits), 0, mostSignificantBits,
+                leastSignificantBits, newPosition, replace, added);
+        return newRoot == root ? this : new PositionsPerId(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static long hash(long mostSignificantBits, long leastSignificantBits) {
+        long hash = (mostSignificantBits ^ Long.rotateLeft(leastSignificantBits, 32)) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << ((int) (hash >>> shift) & LEVEL_MASK);
+    }
+
+    private static Node build(long[] idBits, long[] hashes, int[] positions, int from, int to, int shift,
+                              int[] size) {
+        if (shift >= HASH_BITS) {
+            return collisionNode(idBits, positions, from, to, size);
+        }
+        int[] counts = new int[LEVEL_MASK + 2];
+        for (int index = from; index < to; index++) {
+            counts[((int) (hashes[index] >>> shift) & LEVEL_MASK) + 1]++;
+        }
+        for (int slot = 0; slot <= LEVEL_MASK; slot++) {
+            counts[slot + 1] += counts[slot];
+        }
+        long[] sortedHashes = new long[to - from];
+        int[] sortedPositions = new int[to - from];
+        int[] next = Arrays.copyOf(counts, LEVEL_MASK + 1);
+        for (int index = from; index < to; index++) {
+            int slot = (int) (hashes[index] >>> shift) & LEVEL_MASK;
+            sortedHashes[next[slot]] = hashes[index];
+            sortedPositions[next[slot]++] = positions[index];
+        }
+        System.arraycopy(sortedHashes, 0, hashes, from, to - from);
+        System.arraycopy(sortedPositions, 0, positions, from, to - from);
+
+        int dataMap = 0;
+        int nodeMap = 0;
+        long[] ids = new long[0];
+        int[] dataPositions = new int[0];
+        Node[] nodes = new Node[0];
+        for (int slot = 0; slot <= LEVEL_MASK; slot++) {
+            int slotFrom = from + counts[slot];
+            int slotTo = from + counts[slot + 1];
+            if (slotFrom == slotTo) {
+                continue;
+            }
+            if (sameId(idBits, positions, slotFrom, slotTo)) {
+                int position = positions[slotFrom];
+                dataMap |= 1 << slot;
+                ids = Arrays.copyOf(ids, ids.length + 2);
+                ids[ids.length - 2] = idBits[position << 1];
+                ids[ids.length - 1] = idBits[(position << 1) + 1];
+                dataPositions = Arrays.copyOf(dataPositions, dataPositions.length + 1);
+                dataPositions[dataPositions.length - 1] = position;
+                size[0]++;
+            } else {
+                nodeMap |= 1 << slot;
+                nodes = Arrays.copyOf(nodes, nodes.length + 1);
+                nodes[nodes.length - 1] = build(idBits, hashes, positions, slotFrom, slotTo,
+                        shift + BITS_PER_LEVEL, size);
+            }
+        }
+        return new Node(dataMap, nodeMap, ids, dataPositions, nodes);
+    }
+
+    private static boolean sameId(long[] idBits, int[] positions, int from, int to) {
+        int first = positions[from];
+        for (int index = from + 1; index < to; index++) {
+            int position = positions[index];
+            if (idBits[position << 1] != idBits[first << 1]
+                    || idBits[(position << 1) + 1] != idBits[(first << 1) + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Node collisionNode(long[] idBits, int[] positions, int from, int to, int[] size) {
+        Node node = new Node(0, 0, new long[0], new int[0], new Node[0]);
+        for (int index = from; index < to; index++) {
+            int position = positions[index];
+            boolean[] added = new boolean[1];
+            node = node.withCollision(idBits[position << 1], idBits[(position << 1) + 1], position, false, added);
+            if (added[0]) {
+                size[0]++;
+            }
+        }
+        return node;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class Node {
+        private final int dataMap;
+        private final int nodeMap;
+        private final long[] ids;
+        private final int[] positions;
+        private final Node[] nodes;
+
+        private Node(int dataMap, int nodeMap, long[] ids, int[] positions, Node[] nodes) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.ids = ids;
+            this.positions = positions;
+            this.nodes = nodes;
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private boolean hasId(int index, long mostSignificantBits, long leastSignificantBits) {
+            return ids[index << 1] == mostSignificantBits && ids[(index << 1) + 1] == leastSignificantBits;
+        }
+
+        private int collisionIndex(long mostSignificantBits, long leastSignificantBits) {
+            for (int index = 0; index < positions.length; index++) {
+                if (hasId(index, mostSignificantBits, leastSignificantBits)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private Node with(long hash, int shift, long mostSignificantBits, long leastSignificantBits, int newPosition,
+                          boolean replace, boolean[] added) {
+            if (shift >= HASH_BITS) {
+                return withCollision(mostSignificantBits, leastSignificantBits, newPosition, replace, added);
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (hasId(index, mostSignificantBits, leastSignificantBits)) {
+                    if (!replace || positions[index] == newPosition) {
+                        return this;
+                    }
+                    int[] newPositions = positions.clone();
+                    newPositions[index] = newPosition;
+                    return new Node(dataMap, nodeMap, ids, newPositions, nodes);
+                }
+                long otherMostSignificantBits = ids[index << 1];
+                long otherLeastSignificantBits = ids[(index << 1) + 1];
+                Node subNode = EMPTY_NODE
+                        .with(hash(otherMostSignificantBits, otherLeastSignificantBits), shift + BITS_PER_LEVEL,
+                                otherMostSignificantBits, otherLeastSignificantBits, positions[index], true,
+                                new boolean[1])
+                        .with(hash, shift + BITS_PER_LEVEL, mostSignificantBits, leastSignificantBits, newPosition,
+                                true, added);
+                int nodeIndex = nodeIndex(bit);
+                return new Node(dataMap ^ bit, nodeMap | bit, removeIds(ids, index), removeInt(positions, index),
+                        insert(nodes, nodeIndex, subNode));
+            }
+            if ((nodeMap & bit) != 0) {
+                int nodeIndex = nodeIndex(bit);
+                Node subNode = nodes[nodeIndex];
+                Node newSubNode = subNode.with(hash, shift + BITS_PER_LEVEL, mostSignificantBits, leastSignificantBits,
+                        newPosition, replace, added);
+                if (newSubNode == subNode) {
+                    return this;
+                }
+                Node[] newNodes = nodes.clone();
+                newNodes[nodeIndex] = newSubNode;
+                return new Node(dataMap, nodeMap, ids, positions, newNodes);
+            }
+            added[0] = true;
+            int index = dataIndex(bit);
+            return new Node(dataMap | bit, nodeMap, insertIds(ids, index, mostSignificantBits, leastSignificantBits),
+                    insertInt(positions, index, newPosition), nodes);
+        }
+
+        private Node withCollision(long mostSignificantBits, long leastSignificantBits, int newPosition,
+                                   boolean replace, boolean[] added) {
+            int index = collisionIndex(mostSignificantBits, leastSignificantBits);
+            if (index >= 0) {
+                if (!replace || positions[index] == newPosition) {
+                    return this;
+                }
+                int[] newPositions = positions.clone();
+                newPositions[index] = newPosition;
+                return new Node(0, 0, ids, newPositions, nodes);
+            }
+            added[0] = true;
+            return new Node(0, 0, insertIds(ids, positions.length, mostSignificantBits, leastSignificantBits),
+                    insertInt(positions, positions.length, newPosition), nodes);
+        }
+
+        private Node without(long hash, int shift, long mostSignificantBits, long leastSignificantBits) {
+            if (shift >= HASH_BITS) {
+                int index = collisionIndex(mostSignificantBits, leastSignificantBits);
+                if (index < 0) {
+                    return this;
+                }
+                return positions.length == 1 ? null
+                        : new Node(0, 0, removeIds(ids, index), removeInt(positions, index), nodes);
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!hasId(index, mostSignificantBits, leastSignificantBits)) {
+                    return this;
+                }
+                if (dataMap == bit && nodeMap == 0) {
+                    return null;
+                }
+                return new Node(dataMap ^ bit, nodeMap, removeIds(ids, index), removeInt(positions, index), nodes);
+            }
+            if ((nodeMap & bit) == 0) {
+                return this;
+            }
+            int nodeIndex = nodeIndex(bit);
+            Node subNode = nodes[nodeIndex];
+            Node newSubNode = subNode.without(hash, shift + BITS_PER_LEVEL, mostSignificantBits,
+                    leastSignificantBits);
+            if (newSubNode == subNode) {
+                return this;
+            }
+            if (newSubNode == null) {
+                if (nodeMap == bit && dataMap == 0) {
+                    return null;
+                }
+                return new Node(dataMap, nodeMap ^ bit, ids, positions, removeNode(nodes, nodeIndex));
+            }
+            if (newSubNode.nodeMap == 0 && newSubNode.positions.length == 1 && shift + BITS_PER_LEVEL < HASH_BITS) {
+                int index = dataIndex(bit);
+                return new Node(dataMap | bit, nodeMap ^ bit,
+                        insertIds(ids, index, newSubNode.ids[0], newSubNode.ids[1]),
+                        insertInt(positions, index, newSubNode.positions[0]), removeNode(nodes, nodeIndex));
+            }
+            Node[] newNodes = nodes.clone();
+            newNodes[nodeIndex] = newSubNode;
+            return new Node(dataMap, nodeMap, ids, positions, newNodes);
+        }
+
+        private static long[] insertIds(long[] ids, int index, long mostSignificantBits, long leastSignificantBits) {
+            long[] newIds = new long[ids.length + 2];
+            System.arraycopy(ids, 0, newIds, 0, index << 1);
+            newIds[index << 1] = mostSignificantBits;
+            newIds[(index << 1) + 1] = leastSignificantBits;
+            System.arraycopy(ids, index << 1, newIds, (index + 1) << 1, ids.length - (index << 1));
+            return newIds;
+        }
+
+        private static long[] removeIds(long[] ids, int index) {
+            long[] newIds = new long[ids.length - 2];
+            System.arraycopy(ids, 0, newIds, 0, index << 1);
+            System.arraycopy(ids, (index + 1) << 1, newIds, index << 1, newIds.length - (index << 1));
+            return newIds;
+        }
+
+        private static int[] insertInt(int[] values, int index, int value) {
+            int[] newValues = new int[values.length + 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            newValues[index] = value;
+            System.arraycopy(values, index, newValues, index + 1, values.length - index);
+            return newValues;
+        }
+
+        private static int[] removeInt(int[] values, int index) {
+            int[] newValues = new int[values.length - 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, newValues.length - index);
+            return newValues;
+        }
+
+        private static Node[] insert(Node[] nodes, int index, Node node) {
+            Node[] newNodes = new Node[nodes.length + 1];
+            System.arraycopy(nodes, 0, newNodes, 0, index);
+            newNodes[index] = node;
+            System.arraycopy(nodes, index, newNodes, index + 1, nodes.length - index);
+            return newNodes;
+        }
+
+        private static Node[] removeNode(Node[] nodes, int index) {
+            Node[] newNodes = new Node[nodes.length - 1];
+            System.arraycopy(nodes, 0, newNodes, 0, index);
+            System.arraycopy(nodes, index + 1, newNodes, index, newNodes.length - index);
+            return newNodes;
+        }
+    }
+}
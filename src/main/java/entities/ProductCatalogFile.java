@@ -0,0 +1,398 @@
+package entities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public final class ProductCatalogFile {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MINIMUM_CHUNK_SIZE = 1 << 20;
+
+    private ProductCatalogFile() {
+    }
+
+    public enum Format {
+        CSV {
+            private static final String HEADER = "id,name,category,rating,createdAt,updatedAt";
+
+            @Override
+            Product parse(String line) {
+                List<String> fields = new ArrayList<>(6);
+                StringBuilder field = new StringBuilder();
+                boolean quoted = false;
+                for (int index = 0; index < line.length(); index++) {
+                    char character = line.charAt(index);
+                    if (quoted) {
+                        if (character != '"') {
+                            field.append(character);
+                        } else if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+                            field.append('"');
+                            index++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else if (character == '"') {
+                        quoted = true;
+                    } else if (character == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(character);
+                    }
+                }
+                fields.add(field.toString());
+                if (quoted || fields.size() != 6) {
+                    throw new IllegalArgumentException("Malformed CSV product line: " + line);
+                }
+                return product(fields.get(0), fields.get(1), fields.get(2), fields.get(3), fields.get(4),
+                        fields.get(5), line);
+            }
+
+            @Override
+            void write(BufferedWriter writer, Product product) throws IOException {
+                if (product.name().indexOf('\n') >= 0 || product.name().indexOf('\r') >= 0) {
+                    throw new IllegalArgumentException("CSV product names cannot contain line breaks: "
+                            + product.id());
+                }
+                writer.write(product.id().toString());
+                writer.write(',');
+                if (product.name().indexOf(',') >= 0 || product.name().indexOf('"') >= 0) {
+                    writer.write('"');
+                    writer.write(product.name().replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(product.name());
+                }
+                writer.write(',');
+                writer.write(product.category().name());
+                writer.write(',');
+                writer.write(Double.toString(product.rating()));
+                writer.write(',');
+                writer.write(product.createdAt().toString());
+                writer.write(',');
+                writer.write(product.updatedAt().toString());
+            }
+
+            @Override
+            boolean isHeader(String line) {
+                return line.equals(HEADER);
+            }
+
+            @Override
+            void writeHeader(BufferedWriter writer) throws IOException {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+        },
+        JSON_LINES {
+            @Override
+            Product parse(String line) {
+                String[] values = new String[JSON_FIELDS.size()];
+                int index = skipWhitespace(line, 0);
+                index = expect(line, index, '{');
+                while (true) {
+                    index = skipWhitespace(line, index);
+                    StringBuilder key = new StringBuilder();
+                    index = readString(line, index, key);
+                    index = expect(line, skipWhitespace(line, index), ':');
+                    index = skipWhitespace(line, index);
+                    StringBuilder value = new StringBuilder();
+                    if (index < line.length() && line.charAt(index) == '"') {
+                        index = readString(line, index, value);
+                    } else {
+                        while (index < line.length() && ",} \t".indexOf(line.charAt(index)) < 0) {
+                            value.append(line.charAt(index++));
+                        }
+                    }
+                    int field = JSON_FIELDS.indexOf(key.toString());
+                    if (field >= 0) {
+                        values[field] = value.toString();
+                    }
+                    index = skipWhitespace(line, index);
+                    if (index < line.length() && line.charAt(index) == ',') {
+                        index++;
+                        continue;
+                    }
+                    index = expect(line, index, '}');
+                    break;
+                }
+                if (skipWhitespace(line, index) != line.length() || Arrays.asList(values).contains(null)) {
+                    throw new IllegalArgumentException("Malformed JSON product line: " + line);
+                }
+                return product(values[0], values[1], values[2], values[3], values[4], values[5], line);
+            }
+
+            @Override
+            void write(BufferedWriter writer, Product product) throws IOException {
+                writer.write("{\"id\":\"");
+                writer.write(product.id().toString());
+                writer.write("\",\"name\":\"");
+                writeEscaped(writer, product.name());
+                writer.write("\",\"category\":\"");
+                writer.write(product.category().name());
+                writer.write("\",\"rating\":");
+                writer.write(Double.toString(product.rating()));
+                writer.write(",\"createdAt\":\"");
+                writer.write(product.createdAt().toString());
+                writer.write("\",\"updatedAt\":\"");
+                writer.write(product.updatedAt().toString());
+                writer.write("\"}");
+            }
+        };
+
+        private static final List<String> JSON_FIELDS =
+                List.of("id", "name", "category", "rating", "createdAt", "updatedAt");
+
+        abstract Product parse(String line);
+
+        abstract void write(BufferedWriter writer, Product product) throws IOException;
+
+        boolean isHeader(String line) {
+            return false;
+        }
+
+        void writeHeader(BufferedWriter writer) throws IOException {
+        }
+    }
+
+    public static void write(Path path, Format format, List<Product> products) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            format.writeHeader(writer);
+            for (Product product : products) {
+                format.write(writer, product);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static Stream<Product> read(Path path, Format format) throws IOException {
+        return read(path, format, false);
+    }
+
+    public static Stream<Product> read(Path path, Format format, boolean parallel) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return StreamSupport.stream(new LineSpliterator(channel, 0, channel.size()), parallel)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        } catch (IOException exception) {
+                            throw new UncheckedIOException(exception);
+                        }
+                    })
+                    .filter(line -> !line.isBlank() && !format.isHeader(line))
+                    .map(format::parse);
+        } catch (RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static Product product(String id, String name, String category, String rating, String createdAt,
+                                   String updatedAt, String line) {
+        try {
+            return new Product(
+                    UUID.fromString(id),
+                    name,
+                    Category.valueOf(category),
+                    Double.parseDouble(rating),
+                    LocalDate.parse(createdAt),
+                    LocalDate.parse(updatedAt)
+            );
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Malformed product line: " + line, exception);
+        }
+    }
+
+    private static int skipWhitespace(String line, int index) {
+        while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int expect(String line, int index, char expected) {
+        if (index >= line.length() || line.charAt(index) != expected) {
+            throw new IllegalArgumentException("Malformed JSON product line: " + line);
+        }
+        return index + 1;
+    }
+
+    private static int readString(String line, int index, StringBuilder value) {
+        index = expect(line, index, '"');
+        while (index < line.length()) {
+            char character = line.charAt(index++);
+            if (character == '"') {
+                return index;
+            }
+            if (character != '\\') {
+                value.append(character);
+                continue;
+            }
+            if (index >= line.length()) {
+                break;
+            }
+            char escaped = line.charAt(index++);
+            switch (escaped) {
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (index + 4 > line.length()) {
+                        throw new IllegalArgumentException("Malformed JSON product line: " + line);
+                    }
+                    value.append((char) Integer.parseInt(line, index, index + 4, 16));
+                    index += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Malformed JSON product line: " + line);
+    }
+
+    private static void writeEscaped(BufferedWriter writer, String value) throws IOException {
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            switch (character) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (character < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) character));
+                    } else {
+                        writer.write(character);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class LineSpliterator implements Spliterator<String> {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+        private ByteBuffer buffer;
+        private long readPosition;
+        private byte[] line = new byte[256];
+
+        private LineSpliterator(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (position >= end) {
+                return false;
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+                readPosition = position;
+            }
+            int lineLength = 0;
+            while (true) {
+                if (!buffer.hasRemaining() && !fillBuffer()) {
+                    break;
+                }
+                byte character = buffer.get();
+                position++;
+                if (character == '\n') {
+                    break;
+                }
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, lineLength << 1);
+                }
+                line[lineLength++] = character;
+            }
+            if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                lineLength--;
+            }
+            action.accept(new String(line, 0, lineLength, StandardCharsets.UTF_8));
+            return true;
+        }
+
+        private boolean fillBuffer() {
+            try {
+                buffer.clear();
+                int read = channel.read(buffer, readPosition);
+                buffer.flip();
+                if (read <= 0) {
+                    position = end;
+                    return false;
+                }
+                readPosition += read;
+                return true;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            if (buffer != null || end - position < 2 * MINIMUM_CHUNK_SIZE) {
+                return null;
+            }
+            long boundary = nextLineStart(position + (end - position) / 2);
+            if (boundary >= end) {
+                return null;
+            }
+            LineSpliterator prefix = new LineSpliterator(channel, position, boundary);
+            position = boundary;
+            return prefix;
+        }
+
+        private long nextLineStart(long from) {
+            ByteBuffer probe = ByteBuffer.allocate(BUFFER_SIZE);
+            try {
+                for (long probePosition = from; probePosition < end; ) {
+                    probe.clear();
+                    int read = channel.read(probe, probePosition);
+                    if (read <= 0) {
+                        break;
+                    }
+                    for (int index = 0; index < read; index++) {
+                        if (probe.get(index) == '\n') {
+                            return probePosition + index + 1;
+                        }
+                    }
+                    probePosition += read;
+                }
+                return end;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return (end - position) / 64;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
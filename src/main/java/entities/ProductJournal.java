@@ -0,0 +1,37 @@
+package entities;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface ProductJournal {
+    void appendAddedProducts(List<Product> newProducts);
+
+    void appendChangedProduct(Product updatedProduct);
+
+    void appendRemovedProduct(Product removedProduct);
+
+    default void checkpoint(Checkpoint checkpoint) throws IOException {
+        checkpoint.writeSnapshot();
+    }
+
+    @FunctionalInterface
+    interface Checkpoint {
+        void writeSnapshot() throws IOException;
+    }
+
+    static ProductJournal none() {
+        return new ProductJournal() {
+            @Override
+            public void appendAddedProducts(List<Product> newProducts) {
+            }
+
+            @Override
+            public void appendChangedProduct(Product updatedProduct) {
+            }
+
+            @Override
+            public void appendRemovedProduct(Product removedProduct) {
+            }
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package entities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public final class ProductJournalFile implements ProductJournal, AutoCloseable {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private static final int MAGIC = 0x5748504A;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 34;
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private static final byte ADDED_PRODUCT = 1;
+    private static final byte CHANGED_PRODUCT = 2;
+    private static final byte REMOVED_PRODUCT = 3;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long appendedSequence;
+    private long syncedSequence;
+
+    private ProductJournalFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static ProductJournalFile open(Path path, ProductStore productStore) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                writeHeader(channel);
+            } else {
+                long validSize = replay(path, channel, productStore);
+                channel.truncate(validSize);
+            }
+            channel.position(channel.size());
+            return new ProductJournalFile(channel);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void appendAddedProducts(List<Product> newProducts) {
+        if (!newProducts.isEmpty()) {
+            append(ADDED_PRODUCT, newProducts);
+        }
+    }
+
+    @Override
+    public void appendChangedProduct(Product updatedProduct) {
+        append(CHANGED_PRODUCT, List.of(updatedProduct));
+    }
+
+    @Override
+    public void appendRemovedProduct(Product removedProduct) {
+        append(REMOVED_PRODUCT, List.of(removedProduct));
+    }
+
+    public void truncate() throws IOException {
+        checkpoint(() -> {
+        });
+    }
+
+    @Override
+    public void checkpoint(Checkpoint checkpoint) throws IOException {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                checkpoint.writeSnapshot();
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+                channel.force(true);
+                syncedSequence = appendedSequence;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private void append(byte recordType, List<Product> products) {
+        long sequence;
+        try {
+            synchronized (this) {
+                int from = 0;
+                while (from < products.size()) {
+                    from = writeChunk(recordType, products, from);
+                }
+                sequence = ++appendedSequence;
+            }
+            awaitDurable(sequence);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void awaitDurable(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            long lastAppendedSequence = appendedSequence;
+            channel.force(false);
+            syncedSequence = lastAppendedSequence;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private int writeChunk(byte recordType, List<Product> products, int from) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        long size = 0;
+        int to = from;
+        while (to < products.size()) {
+            byte[] name = products.get(to).name().getBytes(StandardCharsets.UTF_8);
+            long recordSize = RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + (long) name.length;
+            if (to > from && size + recordSize > MAX_CHUNK_SIZE) {
+                break;
+            }
+            names.add(name);
+            size += recordSize;
+            to++;
+        }
+        ByteBuffer records = encode(recordType, products.subList(from, to), names, Math.toIntExact(size));
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+        return to;
+    }
+
+    private static ByteBuffer encode(byte recordType, List<Product> products, List<byte[]> names, int size) {
+        ByteBuffer records = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 checksum = new CRC32();
+        for (int index = 0; index < products.size(); index++) {
+            Product product = products.get(index);
+            byte[] name = names.get(index);
+            int payloadSize = FIXED_PAYLOAD_SIZE + name.length;
+            int recordStart = records.position();
+            records.putInt(payloadSize)
+                    .putInt(0)
+                    .put(recordType)
+                    .putLong(product.id().getMostSignificantBits())
+                    .putLong(product.id().getLeastSignificantBits())
+                    .putDouble(product.rating())
+                    .putInt(Math.toIntExact(product.createdAt().toEpochDay()))
+                    .putInt(Math.toIntExact(product.updatedAt().toEpochDay()))
+                    .put((byte) product.category().ordinal())
+                    .put(name);
+            checksum.reset();
+            checksum.update(records.array(), recordStart + RECORD_HEADER_SIZE, payloadSize);
+            records.putInt(recordStart + Integer.BYTES, (int) checksum.getValue());
+        }
+        return records.flip();
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    private static long replay(Path path, FileChannel channel, ProductStore productStore) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+                throw new IOException(path + " is not a product journal");
+            }
+            if (segment.get(INT, Integer.BYTES) != FORMAT_VERSION) {
+                throw new IOException(path + " has unsupported journal version " + segment.get(INT, Integer.BYTES));
+            }
+            CRC32 checksum = new CRC32();
+            long validSize = HEADER_SIZE;
+            while (segment.byteSize() - validSize >= RECORD_HEADER_SIZE) {
+                int payloadSize = segment.get(INT, validSize);
+                int expectedChecksum = segment.get(INT, validSize + Integer.BYTES);
+                long payloadStart = validSize + RECORD_HEADER_SIZE;
+                if (payloadSize < FIXED_PAYLOAD_SIZE || segment.byteSize() - payloadStart < payloadSize) {
+                    break;
+                }
+                ByteBuffer payload = segment.asSlice(payloadStart, payloadSize).asByteBuffer()
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    break;
+                }
+                applyRecord(path, payload, productStore);
+                validSize = payloadStart + payloadSize;
+            }
+            return validSize;
+        }
+    }
+
+    private static void applyRecord(Path path, ByteBuffer payload, ProductStore productStore) throws IOException {
+        byte recordType = payload.get();
+        UUID id = new UUID(payload.getLong(), payload.getLong());
+        double rating = payload.getDouble();
+        LocalDate createdAt = LocalDate.ofEpochDay(payload.getInt());
+        LocalDate updatedAt = LocalDate.ofEpochDay(payload.getInt());
+        Category category = CATEGORIES[payload.get()];
+        byte[] name = new byte[payload.remaining()];
+        payload.get(name);
+        Product product = new Product(id, new String(name, StandardCharsets.UTF_8), category, rating, createdAt,
+                updatedAt);
+        switch (recordType) {
+            case ADDED_PRODUCT -> {
+                if (productStore.replaceProduct(product).isEmpty()) {
+                    productStore.addProduct(product);
+                }
+            }
+            case CHANGED_PRODUCT -> {
+                if (productStore.replaceProduct(product).isEmpty()) {
+                    throw new IOException(path + " changes unknown product " + id);
+                }
+            }
+            case REMOVED_PRODUCT -> productStore.removeProduct(id);
+            default -> throw new IOException(path + " has unknown journal record type " + recordType);
+        }
+    }
+}
@@ -1,21 +1,157 @@
 package entities;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
-public class ProductList {
-    private final List<Product> products;
+public class ProductList implements ProductStore {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile ProductsSnapshot snapshot;
 
     public ProductList(List<Product> products) {
-        this.products = new ArrayList<>(products);
+        int size = products.size();
+        Product[][] chunks = new Product[(size + CHUNK_MASK) >>> CHUNK_SHIFT][];
+        long[] idBits = new long[size << 1];
+        int position = 0;
+        for (Product product : products) {
+            if ((position & CHUNK_MASK) == 0) {
+                chunks[position >>> CHUNK_SHIFT] = new Product[CHUNK_SIZE];
+            }
+            chunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK] = product;
+            idBits[position << 1] = product.id().getMostSignificantBits();
+            idBits[(position << 1) + 1] = product.id().getLeastSignificantBits();
+            position++;
+        }
+        this.snapshot = new ProductsSnapshot(chunks, size, PositionsPerId.of(idBits, size));
     }
 
+    @Override
     public void addProduct(Product newProduct) {
-        products.add(newProduct);
+        ProductsSnapshot current = snapshot;
+        int size = current.size;
+        Product[][] chunks = current.chunks;
+        if ((size >>> CHUNK_SHIFT) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + Math.max(1, chunks.length >> 1));
+        }
+        if (chunks[size >>> CHUNK_SHIFT] == null) {
+            chunks[size >>> CHUNK_SHIFT] = new Product[CHUNK_SIZE];
+        }
+        chunks[size >>> CHUNK_SHIFT][size & CHUNK_MASK] = newProduct;
+        snapshot = new ProductsSnapshot(chunks, size + 1,
+                current.positionsPerId.withPositionIfAbsent(newProduct.id(), size));
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        ProductsSnapshot current = snapshot;
+        int numberOfChunks = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (numberOfChunks > current.chunks.length) {
+            snapshot = new ProductsSnapshot(Arrays.copyOf(current.chunks, numberOfChunks), current.size,
+                    current.positionsPerId);
+        }
+    }
+
+    @Override
+    public Optional<Product> replaceProduct(Product updatedProduct) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(updatedProduct.id());
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product[][] chunks = current.chunks.clone();
+        Product[] chunk = chunks[position >>> CHUNK_SHIFT].clone();
+        Product replacedProduct = chunk[position & CHUNK_MASK];
+        chunk[position & CHUNK_MASK] = updatedProduct;
+        chunks[position >>> CHUNK_SHIFT] = chunk;
+        snapshot = new ProductsSnapshot(chunks, current.size, current.positionsPerId);
+        return Optional.of(replacedProduct);
+    }
+
+    @Override
+    public Optional<Product> removeProduct(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product removedProduct = current.get(position);
+        int lastPosition = current.size - 1;
+        Product lastProduct = current.get(lastPosition);
+        Product[][] chunks = current.chunks.clone();
+        Product[] lastChunk = chunks[lastPosition >>> CHUNK_SHIFT].clone();
+        lastChunk[lastPosition & CHUNK_MASK] = null;
+        chunks[lastPosition >>> CHUNK_SHIFT] = lastChunk;
+        PositionsPerId positionsPerId = current.positionsPerId.without(id);
+        if (position != lastPosition) {
+            Product[] chunk = chunks[position >>> CHUNK_SHIFT];
+            if ((position >>> CHUNK_SHIFT) != (lastPosition >>> CHUNK_SHIFT)) {
+                chunk = chunk.clone();
+            }
+            chunk[position & CHUNK_MASK] = lastProduct;
+            chunks[position >>> CHUNK_SHIFT] = chunk;
+            if (current.positionsPerId.position(lastProduct.id()) == lastPosition) {
+                positionsPerId = positionsPerId.withPosition(lastProduct.id(), position);
+            }
+        }
+        snapshot = new ProductsSnapshot(chunks, lastPosition, positionsPerId);
+        return Optional.of(removedProduct);
+    }
+
+    @Override
+    public Optional<Product> product(UUID id) {
+        ProductsSnapshot current = snapshot;
+        int position = current.positionsPerId.position(id);
+        return position < 0 ? Optional.empty() : Optional.of(current.get(position));
+    }
+
+    @Override
+    public int position(UUID id) {
+        return snapshot.positionsPerId.position(id);
     }
 
+    @Override
+    public Product product(int position) {
+        return snapshot.get(position);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
     public List<Product> products() {
-        return Collections.unmodifiableList(products);
+        return snapshot;
+    }
+
+    @Override
+    public ProductStore frozen() {
+        ProductsSnapshot current = snapshot;
+        return new FrozenProductStore(current, current.positionsPerId::position);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class ProductsSnapshot extends AbstractList<Product> implements RandomAccess {
+        private final Product[][] chunks;
+        private final int size;
+        private final PositionsPerId positionsPerId;
+
+        private ProductsSnapshot(Product[][] chunks, int size, PositionsPerId positionsPerId) {
+            this.chunks = chunks;
+            this.size = size;
+            this.positionsPerId = positionsPerId;
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, size);
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 }
@@ -0,0 +1,4 @@
+package entities;
+
+public record ProductOrder(int[] positions, int[] groupEnds) {
+}
@@ -0,0 +1,242 @@
+package entities;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public final class ProductSnapshotFile {
+    static final int MAGIC = 0x57485053;
+    static final int FORMAT_VERSION = 2;
+    static final long HEADER_SIZE = 48;
+    static final long ROW_SIZE = 48;
+
+    static final long MAGIC_OFFSET = 0;
+    static final long FORMAT_VERSION_OFFSET = 4;
+    static final long ROW_COUNT_OFFSET = 8;
+    static final long STRING_TABLE_SIZE_OFFSET = 16;
+    static final long ID_SLOT_COUNT_OFFSET = 24;
+    static final long ORDER_COUNT_OFFSET = 32;
+
+    static final long ID_MOST_SIGNIFICANT_BITS = 0;
+    static final long ID_LEAST_SIGNIFICANT_BITS = 8;
+    static final long RATING = 16;
+    static final long NAME_OFFSET = 24;
+    static final long NAME_LENGTH = 32;
+    static final long CREATED_AT_EPOCH_DAY = 36;
+    static final long UPDATED_AT_EPOCH_DAY = 40;
+    static final long CATEGORY_ORDINAL = 44;
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final byte[] ROW_PADDING = new byte[(int) (ROW_SIZE - CATEGORY_ORDINAL - 1)];
+
+    private ProductSnapshotFile() {
+    }
+
+    public static void write(Path path, List<Product> products) throws IOException {
+        write(path, products, Map.of());
+    }
+
+    public static void write(Path path, List<Product> products, Map<String, ProductOrder> productOrders)
+            throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        writeRowsAndNames(temporaryPath, products, productOrders);
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static int idSlot(long mostSignificantBits, long leastSignificantBits, int mask) {
+        long hash = (mostSignificantBits ^ Long.rotateLeft(leastSignificantBits, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private static int[] idSlots(List<Product> products) {
+        int[] positionsPerSlot = new int[Integer.highestOneBit(Math.max(8, products.size()) - 1) << 2];
+        int mask = positionsPerSlot.length - 1;
+        Map<UUID, Boolean> ids = HashMap.newHashMap(products.size());
+        for (int position = 0; position < products.size(); position++) {
+            UUID id = products.get(position).id();
+            if (ids.putIfAbsent(id, Boolean.TRUE) != null) {
+                continue;
+            }
+            int slot = idSlot(id.getMostSignificantBits(), id.getLeastSignificantBits(), mask);
+            while (positionsPerSlot[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            positionsPerSlot[slot] = position + 1;
+        }
+        return positionsPerSlot;
+    }
+
+    private static void writeRowsAndNames(Path path, List<Product> products, Map<String, ProductOrder> productOrders)
+            throws IOException {
+        int[] idSlots = idSlots(products);
+        Map<String, Long> nameOffsets = new HashMap<>();
+        long stringTableSize = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(products.size())
+                    .putLong(0)
+                    .putLong(idSlots.length)
+                    .putLong(productOrders.size())
+                    .putLong(0);
+
+            for (Product product : products) {
+                byte[] name = product.name().getBytes(StandardCharsets.UTF_8);
+                Long nameOffset = nameOffsets.putIfAbsent(product.name(), stringTableSize);
+                if (nameOffset == null) {
+                    nameOffset = stringTableSize;
+                    stringTableSize += name.length;
+                }
+                flushIfFull(channel, buffer, ROW_SIZE);
+                buffer.putLong(product.id().getMostSignificantBits())
+                        .putLong(product.id().getLeastSignificantBits())
+                        .putDouble(product.rating())
+                        .putLong(nameOffset)
+                        .putInt(name.length)
+                        .putInt(Math.toIntExact(product.createdAt().toEpochDay()))
+                        .putInt(Math.toIntExact(product.updatedAt().toEpochDay()))
+                        .put((byte) product.category().ordinal())
+                        .put(ROW_PADDING);
+            }
+
+            long writtenStringTableSize = 0;
+            for (Product product : products) {
+                if (nameOffsets.get(product.name()) != writtenStringTableSize) {
+                    continue;
+                }
+                byte[] name = product.name().getBytes(StandardCharsets.UTF_8);
+                writtenStringTableSize += name.length;
+                for (int written = 0; written < name.length; ) {
+                    flushIfFull(channel, buffer, 1);
+                    int length = Math.min(buffer.remaining(), name.length - written);
+                    buffer.put(name, written, length);
+                    written += length;
+                }
+            }
+            writeInts(channel, buffer, idSlots);
+            for (Map.Entry<String, ProductOrder> productOrder : productOrders.entrySet()) {
+                byte[] name = productOrder.getKey().getBytes(StandardCharsets.UTF_8);
+                flushIfFull(channel, buffer, 3L * Integer.BYTES + name.length);
+                buffer.putInt(name.length)
+                        .put(name)
+                        .putInt(productOrder.getValue().positions().length)
+                        .putInt(productOrder.getValue().groupEnds().length);
+                writeInts(channel, buffer, productOrder.getValue().positions());
+                writeInts(channel, buffer, productOrder.getValue().groupEnds());
+            }
+            flush(channel, buffer);
+            channel.write(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putLong(0, stringTableSize), STRING_TABLE_SIZE_OFFSET);
+            channel.force(true);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for (int value : values) {
+            flushIfFull(channel, buffer, Integer.BYTES);
+            buffer.putInt(value);
+        }
+    }
+
+    public static MappedProductList open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            checkHeader(path, segment);
+            return new MappedProductList(arena, segment, productOrders(path, segment));
+        } catch (IOException | RuntimeException exception) {
+            arena.close();
+            throw exception;
+        }
+    }
+
+    private static void checkHeader(Path path, MemorySegment segment) throws IOException {
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, MAGIC_OFFSET) != MAGIC) {
+            throw new IOException(path + " is not a product snapshot");
+        }
+        if (segment.get(INT, FORMAT_VERSION_OFFSET) != FORMAT_VERSION) {
+            throw new IOException(path + " has unsupported snapshot version " + segment.get(INT, FORMAT_VERSION_OFFSET));
+        }
+        long rowCount = segment.get(LONG, ROW_COUNT_OFFSET);
+        long stringTableSize = segment.get(LONG, STRING_TABLE_SIZE_OFFSET);
+        long idSlotCount = segment.get(LONG, ID_SLOT_COUNT_OFFSET);
+        if (rowCount < 0 || rowCount > Integer.MAX_VALUE || stringTableSize < 0
+                || idSlotCount <= rowCount || idSlotCount > 1 << 30 || Long.bitCount(idSlotCount) != 1
+                || idSlotsOffset(rowCount, stringTableSize) + idSlotCount * Integer.BYTES > segment.byteSize()) {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+    }
+
+    static long idSlotsOffset(long rowCount, long stringTableSize) {
+        return HEADER_SIZE + rowCount * ROW_SIZE + stringTableSize;
+    }
+
+    record OrderSection(long positionsOffset, int numberOfPositions, int numberOfGroups) {
+    }
+
+    private static Map<String, OrderSection> productOrders(Path path, MemorySegment segment) throws IOException {
+        long offset = idSlotsOffset(segment.get(LONG, ROW_COUNT_OFFSET), segment.get(LONG, STRING_TABLE_SIZE_OFFSET))
+                + segment.get(LONG, ID_SLOT_COUNT_OFFSET) * Integer.BYTES;
+        long numberOfOrders = segment.get(LONG, ORDER_COUNT_OFFSET);
+        Map<String, OrderSection> productOrders = new HashMap<>();
+        for (long order = 0; order < numberOfOrders; order++) {
+            if (offset + Integer.BYTES > segment.byteSize()) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+            int nameLength = segment.get(INT, offset);
+            long countsOffset = offset + Integer.BYTES + nameLength;
+            if (nameLength < 0 || countsOffset + 2L * Integer.BYTES > segment.byteSize()) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+            byte[] name = new byte[nameLength];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, name, 0, nameLength);
+            int numberOfPositions = segment.get(INT, countsOffset);
+            int numberOfGroups = segment.get(INT, countsOffset + Integer.BYTES);
+            long positionsOffset = countsOffset + 2L * Integer.BYTES;
+            offset = positionsOffset + ((long) numberOfPositions + numberOfGroups) * Integer.BYTES;
+            if (numberOfPositions < 0 || numberOfGroups < 0 || offset > segment.byteSize()) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+            productOrders.put(new String(name, StandardCharsets.UTF_8),
+                    new OrderSection(positionsOffset, numberOfPositions, numberOfGroups));
+        }
+        if (offset != segment.byteSize()) {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+        return productOrders;
+    }
+
+    private static void flushIfFull(FileChannel channel, ByteBuffer buffer, long bytesNeeded) throws IOException {
+        if (buffer.remaining() < bytesNeeded) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
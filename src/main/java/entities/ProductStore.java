@@ -0,0 +1,35 @@
+package entities;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ProductStore {
+    void addProduct(Product newProduct);
+
+    default void ensureCapacity(int capacity) {
+    }
+
+    Optional<Product> replaceProduct(Product updatedProduct);
+
+    // Moves the last product into the position of the removed one, so that positions stay dense.
+    Optional<Product> removeProduct(UUID id);
+
+    Optional<Product> product(UUID id);
+
+    int position(UUID id);
+
+    Product product(int position);
+
+    int size();
+
+    List<Product> products();
+
+    default Optional<ProductOrder> productOrder(String name) {
+        return Optional.empty();
+    }
+
+    default ProductStore frozen() {
+        return new FrozenProductStore(products(), null);
+    }
+}
@@ -0,0 +1,506 @@
+package service;
+
+import entities.Category;
+import entities.InputProductData;
+import entities.Product;
+import entities.ProductCatalogFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+public final class AsyncWarehouse implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Warehouse warehouse;
+    private final int batchSize;
+    private final BlockingQueue<Mutation> mutations;
+    private final ReadWriteLock submissionLock = new ReentrantReadWriteLock();
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread writer;
+    private boolean closed;
+    private volatile Throwable writerFailure;
+    // Swapped by the writer after every batch, so that reads never wait for a batch to be applied.
+    private volatile WarehouseSnapshot latestSnapshot;
+
+    public AsyncWarehouse(Warehouse warehouse) {
+        this(warehouse, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsyncWarehouse(Warehouse warehouse, int queueCapacity, int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("queueCapacity and batchSize must be at least 1");
+        }
+        this.warehouse = warehouse;
+        this.batchSize = batchSize;
+        this.mutations = new ArrayBlockingQueue<>(queueCapacity);
+        this.latestSnapshot = warehouse.publishedSnapshot();
+        this.writer = Thread.ofVirtual().name("warehouse-writer").start(this::applyMutations);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private sealed interface Mutation permits NewProduct, Change, Stop {
+        void fail(Throwable failure);
+    }
+
+    private record NewProduct(InputProductData inputProductData, CompletableFuture<Product> result)
+            implements Mutation {
+        @Override
+        public void fail(Throwable failure) {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    private record Change<T>(Function<Warehouse, T> change, CompletableFuture<T> result) implements Mutation {
+        Runnable apply(Warehouse warehouse) {
+            try {
+                T changed = change.apply(warehouse);
+                return () -> result.complete(changed);
+            } catch (Exception exception) {
+                return () -> result.completeExceptionally(exception);
+            }
+        }
+
+        @Override
+        public void fail(Throwable failure) {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    private record Stop() implements Mutation {
+        @Override
+        public void fail(Throwable failure) {
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Mutation mutation, CompletableFuture<T> result) {
+        submissionLock.readLock().lock();
+        try {
+            if (closed || writerFailure != null) {
+                return CompletableFuture.failedFuture(rejection());
+            }
+            mutations.put(mutation);
+            return result;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(exception);
+        } finally {
+            submissionLock.readLock().unlock();
+        }
+    }
+
+    private RejectedExecutionException rejection() {
+        Throwable failure = writerFailure;
+        return failure == null
+                ? new RejectedExecutionException("warehouse is closed")
+                : new RejectedExecutionException("warehouse writer failed", failure);
+    }
+
+    private <T> CompletableFuture<T> write(Function<Warehouse, T> change) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        return submit(new Change<>(change, result), result);
+    }
+
+    private void applyMutations() {
+        List<Mutation> batch = new ArrayList<>(batchSize);
+        List<NewProduct> newProducts = new ArrayList<>();
+        boolean stopped = false;
+        List<Runnable> completions = new ArrayList<>(batchSize);
+        while (!stopped) {
+            try {
+                batch.add(mutations.take());
+            } catch (InterruptedException exception) {
+                continue;
+            }
+            mutations.drainTo(batch, batchSize - 1);
+            try {
+                for (Mutation mutation : batch) {
+                    if (!(mutation instanceof NewProduct)) {
+                        completions.add(addNewProducts(newProducts));
+                    }
+                    switch (mutation) {
+                        case NewProduct newProduct -> newProducts.add(newProduct);
+                        case Change<?> change -> completions.add(change.apply(warehouse));
+                        case Stop stop -> stopped = true;
+                    }
+                }
+                completions.add(addNewProducts(newProducts));
+                latestSnapshot = warehouse.publishedSnapshot();
+            } catch (Throwable failure) {
+                failWriter(failure, batch, completions);
+                return;
+            }
+            List<Runnable> batchCompletions = List.copyOf(completions);
+            readers.execute(() -> batchCompletions.forEach(Runnable::run));
+            completions.clear();
+            batch.clear();
+        }
+    }
+
+    private void failWriter(Throwable failure, List<Mutation> batch, List<Runnable> completions) {
+        writerFailure = failure;
+        completions.forEach(Runnable::run);
+        batch.forEach(mutation -> mutation.fail(failure));
+        List<Mutation> queuedMutations = new ArrayList<>();
+        while (!submissionLock.writeLock().tryLock()) {
+            failQueuedMutations(queuedMutations, failure);
+            Thread.yield();
+        }
+        try {
+            closed = true;
+            failQueuedMutations(queuedMutations, failure);
+        } finally {
+            submissionLock.writeLock().unlock();
+        }
+    }
+
+    private void failQueuedMutations(List<Mutation> queuedMutations, Throwable failure) {
+        mutations.drainTo(queuedMutations);
+        queuedMutations.forEach(mutation -> mutation.fail(failure));
+        queuedMutations.clear();
+    }
+
+    private Runnable addNewProducts(List<NewProduct> newProducts) {
+        if (newProducts.isEmpty()) {
+            return () -> {
+            };
+        }
+        List<NewProduct> addedNewProducts = new ArrayList<>(newProducts.size());
+        List<Runnable> rejections = new ArrayList<>();
+        for (NewProduct newProduct : newProducts) {
+            try {
+                Warehouse.checkInputProductData(newProduct.inputProductData());
+                addedNewProducts.add(newProduct);
+            } catch (RuntimeException exception) {
+                rejections.add(() -> newProduct.result().completeExceptionally(exception));
+            }
+        }
+        newProducts.clear();
+        Runnable additions = addValidatedNewProducts(addedNewProducts);
+        return () -> {
+            rejections.forEach(Runnable::run);
+            additions.run();
+        };
+    }
+
+    private Runnable addValidatedNewProducts(List<NewProduct> newProducts) {
+        if (newProducts.isEmpty()) {
+            return () -> {
+            };
+        }
+        try {
+            List<Product> addedProducts = warehouse.addNewProducts(
+                    newProducts.stream().map(NewProduct::inputProductData).toList());
+            return () -> {
+                for (int product = 0; product < addedProducts.size(); product++) {
+                    newProducts.get(product).result().complete(addedProducts.get(product));
+                }
+            };
+        } catch (Exception exception) {
+            return () -> newProducts.forEach(newProduct -> newProduct.result().completeExceptionally(exception));
+        }
+    }
+
+    private <T> CompletableFuture<T> read(String method, Function<WarehouseSnapshot, T> query) {
+        try {
+            return CompletableFuture.supplyAsync(() ->
+                    warehouse.getMetrics().measure(method, () -> query.apply(latestSnapshot)), readers);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Product> addNewProduct(InputProductData inputProductData) {
+        CompletableFuture<Product> result = new CompletableFuture<>();
+        return submit(new NewProduct(inputProductData, result), result);
+    }
+
+    public CompletableFuture<List<Product>> addNewProducts(Collection<InputProductData> inputProducts) {
+        List<InputProductData> newProducts = List.copyOf(inputProducts);
+        return write(warehouse -> warehouse.addNewProducts(newProducts));
+    }
+
+    public CompletableFuture<Product> changeProductNameCategoryRating(UUID id, InputProductData inputProductData) {
+        return write(warehouse -> warehouse.changeProductNameCategoryRating(id, inputProductData));
+    }
+
+    public CompletableFuture<Optional<Product>> removeProduct(UUID id) {
+        return write(warehouse -> warehouse.removeProduct(id));
+    }
+
+    public CompletableFuture<Long> importProducts(Path path, ProductCatalogFile.Format format, boolean parallel) {
+        return write(warehouse -> {
+            try {
+                return warehouse.importProducts(path, format, parallel);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> exportProducts(Path path, ProductCatalogFile.Format format) {
+        return snapshot().thenAcceptAsync(snapshot -> {
+            try {
+                snapshot.exportProducts(path, format);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, readers);
+    }
+
+    public CompletableFuture<Void> writeSnapshot(Path path) {
+        return snapshot().thenAcceptAsync(snapshot -> {
+            try {
+                snapshot.writeSnapshot(path);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, readers);
+    }
+
+    public CompletableFuture<Void> checkpoint(Path snapshotPath) {
+        return write(warehouse -> {
+            try {
+                warehouse.checkpoint(snapshotPath);
+                return null;
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+    public CompletableFuture<WarehouseSnapshot> snapshot() {
+        return read("snapshot", snapshot -> snapshot);
+    }
+
+    public CompletableFuture<List<Product>> getProductList() {
+        return read("getProductList", WarehouseSnapshot::getProductList);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<UUID, List<Product>>> getProductsPerId() {
+        return read("getProductsPerId", WarehouseSnapshot::getProductsPerId);
+    }
+
+    public CompletableFuture<Optional<Product>> getAProductForItsId(UUID id) {
+        return read("getAProductForItsId", snapshot -> snapshot.getAProductForItsId(id));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<LocalDate, List<Product>>> getProductsPerCreatedAt() {
+        return read("getProductsPerCreatedAt", WarehouseSnapshot::getProductsPerCreatedAt);
+    }
+
+    public CompletableFuture<Map<LocalDate, List<Product>>> getProductsPerUpdatedAt() {
+        return read("getProductsPerUpdatedAt", WarehouseSnapshot::getProductsPerUpdatedAt);
+    }
+
+    public CompletableFuture<List<Product>> getFilteredProductsByDate(LocalDate dateTwo) {
+        return read("getFilteredProductsByDate", snapshot -> snapshot.getFilteredProductsByDate(dateTwo));
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedAfter(LocalDate date) {
+        return read("getProductsCreatedAfter", snapshot -> snapshot.getProductsCreatedAfter(date));
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedBefore(LocalDate date) {
+        return read("getProductsCreatedBefore", snapshot -> snapshot.getProductsCreatedBefore(date));
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return read("getProductsCreatedBetween", snapshot -> snapshot.getProductsCreatedBetween(fromDate, toDate));
+    }
+
+    public CompletableFuture<List<Product>> getProductsUpdatedAfter(LocalDate date) {
+        return read("getProductsUpdatedAfter", snapshot -> snapshot.getProductsUpdatedAfter(date));
+    }
+
+    public CompletableFuture<List<Product>> getProductsUpdatedBefore(LocalDate date) {
+        return read("getProductsUpdatedBefore", snapshot -> snapshot.getProductsUpdatedBefore(date));
+    }
+
+    public CompletableFuture<List<Product>> getProductsUpdatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return read("getProductsUpdatedBetween", snapshot -> snapshot.getProductsUpdatedBetween(fromDate, toDate));
+    }
+
+    public CompletableFuture<List<Product>> getAllUpdatedProducts() {
+        return read("getAllUpdatedProducts", WarehouseSnapshot::getAllUpdatedProducts);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<Category, List<Product>>> getProductsPerCategory() {
+        return read("getProductsPerCategory", WarehouseSnapshot::getProductsPerCategory);
+    }
+
+    public CompletableFuture<Warehouse.SortedProducts> getSortedProductsForACategory(Category category) {
+        return read("getSortedProductsForACategory", snapshot -> snapshot.getSortedProductsForACategory(category));
+    }
+
+    public CompletableFuture<Warehouse.SortedProducts> getSortedProductsForACategory(Category category, int offset,
+                                                                                      int limit) {
+        return read("getSortedProductsForACategory", snapshot ->
+                snapshot.getSortedProductsForACategory(category, offset, limit));
+    }
+
+    public CompletableFuture<Warehouse.SortedProducts> getSortedProductsForACategoryAfter(Category category,
+                                                                                           Product lastProduct,
+                                                                                           int limit) {
+        return read("getSortedProductsForACategoryAfter", snapshot ->
+                snapshot.getSortedProductsForACategoryAfter(category, lastProduct, limit));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<Category, Long>> getNumberOfProductsPerCategory() {
+        return read("getNumberOfProductsPerCategory", WarehouseSnapshot::getNumberOfProductsPerCategory);
+    }
+
+    public CompletableFuture<Long> getNumberOfProductsForACategory(Category category) {
+        return read("getNumberOfProductsForACategory", snapshot -> snapshot.getNumberOfProductsForACategory(category));
+    }
+
+    public CompletableFuture<List<Category>> getAllCategoriesWithProducts() {
+        return read("getAllCategoriesWithProducts", WarehouseSnapshot::getAllCategoriesWithProducts);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<Character, List<Product>>> getProductsPerFirstLetter() {
+        return read("getProductsPerFirstLetter", WarehouseSnapshot::getProductsPerFirstLetter);
+    }
+
+    public CompletableFuture<List<Product>> getProductsWithNamePrefix(String prefix) {
+        return read("getProductsWithNamePrefix", snapshot -> snapshot.getProductsWithNamePrefix(prefix));
+    }
+
+    public CompletableFuture<List<Product>> getProductsWithNamePrefix(String prefix, int limit) {
+        return read("getProductsWithNamePrefix", snapshot -> snapshot.getProductsWithNamePrefix(prefix, limit));
+    }
+
+    public CompletableFuture<List<String>> autocompleteProductNames(String prefix, int limit) {
+        return read("autocompleteProductNames", snapshot -> snapshot.autocompleteProductNames(prefix, limit));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<Map<Month, List<Product>>> getProductsPerCreatedAtMonth() {
+        return read("getProductsPerCreatedAtMonth", WarehouseSnapshot::getProductsPerCreatedAtMonth);
+    }
+
+    public CompletableFuture<List<Product>> getProductsForAMonth(Month month) {
+        return read("getProductsForAMonth", snapshot -> snapshot.getProductsForAMonth(month));
+    }
+
+    public CompletableFuture<NavigableMap<YearMonth, List<Product>>> getProductsPerCreatedAtYearMonth() {
+        return read("getProductsPerCreatedAtYearMonth", WarehouseSnapshot::getProductsPerCreatedAtYearMonth);
+    }
+
+    public CompletableFuture<List<Product>> getProductsForAYearMonth(YearMonth yearMonth) {
+        return read("getProductsForAYearMonth", snapshot -> snapshot.getProductsForAYearMonth(yearMonth));
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedInLastMonths(YearMonth lastMonth, int numberOfMonths) {
+        return read("getProductsCreatedInLastMonths", snapshot ->
+                snapshot.getProductsCreatedInLastMonths(lastMonth, numberOfMonths));
+    }
+
+    public CompletableFuture<NavigableMap<LocalDate, List<Product>>> getProductsPerCreatedAtWeek() {
+        return read("getProductsPerCreatedAtWeek", WarehouseSnapshot::getProductsPerCreatedAtWeek);
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedInLastWeeks(LocalDate lastDay, int numberOfWeeks) {
+        return read("getProductsCreatedInLastWeeks", snapshot ->
+                snapshot.getProductsCreatedInLastWeeks(lastDay, numberOfWeeks));
+    }
+
+    public CompletableFuture<List<Product>> getProductsCreatedInLastDays(LocalDate lastDay, int numberOfDays) {
+        return read("getProductsCreatedInLastDays", snapshot ->
+                snapshot.getProductsCreatedInLastDays(lastDay, numberOfDays));
+    }
+
+    public CompletableFuture<List<Product>> getSortedProductsWithMaxRatingForThisMonthByCreatedAt(
+            Warehouse.ThisMonth thisMonth) {
+        return read("getSortedProductsWithMaxRatingForThisMonthByCreatedAt", snapshot ->
+                snapshot.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(thisMonth));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<List<Product>> getTopRatedProducts(int numberOfProducts) {
+        return read("getTopRatedProducts", snapshot -> snapshot.getTopRatedProducts(numberOfProducts));
+    }
+
+    public CompletableFuture<List<Product>> getTopRatedProductsForACategory(Category category, int numberOfProducts) {
+        return read("getTopRatedProductsForACategory", snapshot ->
+                snapshot.getTopRatedProductsForACategory(category, numberOfProducts));
+    }
+
+    public CompletableFuture<List<Product>> getTopRatedProductsForAMonth(Month month, int numberOfProducts) {
+        return read("getTopRatedProductsForAMonth", snapshot ->
+                snapshot.getTopRatedProductsForAMonth(month, numberOfProducts));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public CompletableFuture<List<Product>> findProducts(ProductQuery query) {
+        return read("findProducts", snapshot -> snapshot.findProducts(query));
+    }
+
+    public <R> CompletableFuture<List<R>> findProducts(ProductQuery query,
+                                                       Function<? super Product, ? extends R> projection) {
+        return read("findProducts", snapshot -> snapshot.findProducts(query, projection));
+    }
+
+    public <K> CompletableFuture<Map<K, List<Product>>> findProductsPer(ProductQuery query,
+                                                                        Function<? super Product, ? extends K> key) {
+        return read("findProductsPer", snapshot -> snapshot.findProductsPer(query, key));
+    }
+
+    public <K> CompletableFuture<Map<K, Long>> countProductsPer(ProductQuery query,
+                                                                Function<? super Product, ? extends K> key) {
+        return read("countProductsPer", snapshot -> snapshot.countProductsPer(query, key));
+    }
+
+    public CompletableFuture<QueryPlan> explain(ProductQuery query) {
+        return read("explain", snapshot -> snapshot.explain(query));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public ResultCache.Statistics getResultCacheStatistics() {
+        return latestSnapshot.getResultCacheStatistics();
+    }
+
+    public WarehouseMetrics getMetrics() {
+        return warehouse.getMetrics();
+    }
+
+    public ProductEventPublisher productEvents() {
+        return warehouse.productEvents();
+    }
+
+    @Override
+    public void close() {
+        submissionLock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                mutations.put(new Stop());
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            submissionLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        readers.close();
+    }
+}
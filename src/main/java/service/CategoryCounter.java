@@ -0,0 +1,77 @@
+package service;
+
+import entities.Category;
+import entities.Product;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+class CategoryCounter implements ProductIndexing {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final LongAdder[] numberOfProductsPerOrdinal = new LongAdder[CATEGORIES.length];
+
+    CategoryCounter() {
+        Arrays.setAll(numberOfProductsPerOrdinal, ordinal -> new LongAdder());
+    }
+
+    @Override
+    public void addProduct(int position, Product product) {
+        addProduct(product);
+    }
+
+    @Override
+    public void removeProduct(int position, Product product) {
+        removeProduct(product);
+    }
+
+    void addProduct(Product product) {
+        numberOfProductsPerOrdinal[product.category().ordinal()].increment();
+    }
+
+    void removeProduct(Product product) {
+        numberOfProductsPerOrdinal[product.category().ordinal()].decrement();
+    }
+
+    void addProducts(CategoryCounter counter) {
+        for (Category category : CATEGORIES) {
+            numberOfProductsPerOrdinal[category.ordinal()].add(counter.numberOfProducts(category));
+        }
+    }
+
+    void addProducts(ProductIndex<Category> productsPerCategory) {
+        productsPerCategory.positionsPerKey().forEach((category, positions) ->
+                numberOfProductsPerOrdinal[category.ordinal()].add(positions.size()));
+    }
+
+    CategoryCounter frozen() {
+        CategoryCounter counter = new CategoryCounter();
+        counter.addProducts(this);
+        return counter;
+    }
+
+    long numberOfProducts(Category category) {
+        return numberOfProductsPerOrdinal[category.ordinal()].sum();
+    }
+
+    Map<Category, Long> numberOfProductsPerCategory() {
+        Map<Category, Long> numberOfProductsPerCategory = new EnumMap<>(Category.class);
+        for (Category category : CATEGORIES) {
+            long numberOfProducts = numberOfProducts(category);
+            if (numberOfProducts > 0) {
+                numberOfProductsPerCategory.put(category, numberOfProducts);
+            }
+        }
+        return Collections.unmodifiableMap(numberOfProductsPerCategory);
+    }
+
+    List<Category> categoriesWithProducts() {
+        List<Category> categoriesWithProducts = new ArrayList<>(CATEGORIES.length);
+        for (Category category : CATEGORIES) {
+            if (numberOfProducts(category) > 0) {
+                categoriesWithProducts.add(category);
+            }
+        }
+        return Collections.unmodifiableList(categoriesWithProducts);
+    }
+}
@@ -0,0 +1,594 @@
+package service;
+
+import entities.Category;
+import entities.InputProductData;
+import entities.Product;
+import entities.ProductCatalogFile;
+import entities.ProductJournal;
+import entities.ProductList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConcurrentWarehouse {
+    private static final int DEFAULT_NUMBER_OF_STRIPES = 16;
+
+    private final Warehouse[] stripes;
+    private final ReadWriteLock[] locks;
+    private final int stripeMask;
+    private final ProductJournal productJournal;
+    private final QueryExecution queryExecution;
+    private final ResultCache resultCache;
+    private final ProductEventPublisher productEvents;
+    private final CategoryCounter numberOfProductsPerCategory = new CategoryCounter();
+    private final WarehouseMetrics metrics = new WarehouseMetrics(numberOfProductsPerCategory);
+
+    public ConcurrentWarehouse() {
+        this(DEFAULT_NUMBER_OF_STRIPES);
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes) {
+        this(numberOfStripes, IdGenerator.secureRandom());
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes, IdGenerator idGenerator) {
+        this(numberOfStripes, idGenerator, ProductJournal.none());
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes, IdGenerator idGenerator, ProductJournal productJournal) {
+        this(numberOfStripes, idGenerator, productJournal, QueryExecution.sequential());
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes, IdGenerator idGenerator, ProductJournal productJournal,
+                               QueryExecution queryExecution) {
+        this(numberOfStripes, idGenerator, productJournal, queryExecution, new ResultCache());
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes, IdGenerator idGenerator, ProductJournal productJournal,
+                               QueryExecution queryExecution, ResultCache resultCache) {
+        this(numberOfStripes, idGenerator, productJournal, queryExecution, resultCache, new ProductEventPublisher());
+    }
+
+    public ConcurrentWarehouse(int numberOfStripes, IdGenerator idGenerator, ProductJournal productJournal,
+                               QueryExecution queryExecution, ResultCache resultCache,
+                               ProductEventPublisher productEvents) {
+        if (numberOfStripes < 1) {
+            throw new IllegalArgumentException("numberOfStripes must be at least 1");
+        }
+        int stripeCount = numberOfStripes == 1 ? 1 : Integer.highestOneBit(numberOfStripes - 1) << 1;
+        this.stripes = new Warehouse[stripeCount];
+        this.locks = new ReadWriteLock[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        this.productJournal = productJournal;
+        this.queryExecution = queryExecution;
+        this.resultCache = resultCache;
+        this.productEvents = productEvents;
+        for (int stripe = 0; stripe < stripeCount; stripe++) {
+            stripes[stripe] = new Warehouse(new ProductList(List.of()), idGenerator, productJournal,
+                    queryExecution, ResultCache.disabled(), ProductEventPublisher.disabled(), false);
+            locks[stripe] = new ReentrantReadWriteLock();
+        }
+    }
+
+    ConcurrentWarehouse(Warehouse[] frozenStripes, QueryExecution queryExecution, ResultCache resultCache) {
+        this.stripes = frozenStripes;
+        this.locks = new ReadWriteLock[frozenStripes.length];
+        this.stripeMask = frozenStripes.length - 1;
+        this.productJournal = ProductJournal.none();
+        this.queryExecution = queryExecution;
+        this.resultCache = resultCache;
+        this.productEvents = ProductEventPublisher.disabled();
+        for (int stripe = 0; stripe < frozenStripes.length; stripe++) {
+            locks[stripe] = new ReentrantReadWriteLock();
+            numberOfProductsPerCategory.addProducts(frozenStripes[stripe].numberOfProductsPerCategory());
+        }
+    }
+
+    private int stripeFor(UUID id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private <T> T read(int stripe, Function<Warehouse, T> query) {
+        locks[stripe].readLock().lock();
+        try {
+            return query.apply(stripes[stripe]);
+        } finally {
+            locks[stripe].readLock().unlock();
+        }
+    }
+
+    private <T> T write(int stripe, Function<Warehouse, T> mutation) {
+        locks[stripe].writeLock().lock();
+        try {
+            return mutation.apply(stripes[stripe]);
+        } finally {
+            locks[stripe].writeLock().unlock();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private List<Product> collectingProducts(Function<Warehouse, List<Product>> query) {
+        List<Product> products = new ArrayList<>();
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            read(stripe, warehouse -> products.addAll(query.apply(warehouse)));
+        }
+        return Collections.unmodifiableList(products);
+    }
+
+    private <K extends Comparable<? super K>> List<Product> collectingProducts(
+            Function<Warehouse, List<Product>> query, Function<Product, K> order) {
+        List<Product> products = new ArrayList<>();
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            read(stripe, warehouse -> products.addAll(query.apply(warehouse)));
+        }
+        products.sort(Comparator.comparing(order));
+        return Collections.unmodifiableList(products);
+    }
+
+    private <K, M extends Map<K, List<Product>>> M mergingProducts(
+            Function<Warehouse, ? extends Map<K, List<Product>>> query, Supplier<M> mapFactory) {
+        M productsPerKey = mapFactory.get();
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            read(stripe, warehouse -> {
+                query.apply(warehouse).forEach((key, products) ->
+                        productsPerKey.computeIfAbsent(key, k -> new ArrayList<>()).addAll(products));
+                return null;
+            });
+        }
+        productsPerKey.replaceAll((key, products) -> Collections.unmodifiableList(products));
+        return productsPerKey;
+    }
+
+    private <K> Map<K, List<Product>> mergingProducts(Function<Warehouse, Map<K, List<Product>>> query) {
+        return Collections.unmodifiableMap(mergingProducts(query, HashMap::new));
+    }
+
+    private <K> NavigableMap<K, List<Product>> mergingSortedProducts(
+            Function<Warehouse, NavigableMap<K, List<Product>>> query) {
+        TreeMap<K, List<Product>> productsPerKey = mergingProducts(query, TreeMap::new);
+        return Collections.unmodifiableNavigableMap(productsPerKey);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Product createNewProduct(InputProductData inputProductData) {
+        return measured("createNewProduct", () -> stripes[0].createNewProduct(inputProductData));
+    }
+
+    public void addNewProduct(InputProductData inputProductData) {
+        measured("addNewProduct", () -> {
+            Product newProduct = stripes[0].createNewProduct(inputProductData);
+            productJournal.appendAddedProducts(List.of(newProduct));
+            write(stripeFor(newProduct.id()), warehouse -> {
+                warehouse.addProduct(newProduct);
+                numberOfProductsPerCategory.addProduct(newProduct);
+                resultCache.invalidate();
+                productEvents.productAdded(newProduct);
+                return null;
+            });
+            return newProduct;
+        });
+    }
+
+    public List<Product> addNewProducts(Collection<InputProductData> inputProducts) {
+        return addNewProducts(inputProducts.stream());
+    }
+
+    public List<Product> addNewProducts(Stream<InputProductData> inputProducts) {
+        return measured("addNewProducts", () -> addProducts(stripes[0].createNewProducts(inputProducts)));
+    }
+
+    public long importProducts(Path path, ProductCatalogFile.Format format, boolean parallel) throws IOException {
+        try (Stream<Product> products = ProductCatalogFile.read(path, format, parallel)) {
+            return Warehouse.importingInBatches(products, this::addProducts);
+        }
+    }
+
+    public void exportProducts(Path path, ProductCatalogFile.Format format) throws IOException {
+        ProductCatalogFile.write(path, format, collectingProducts(Warehouse::getProductList));
+    }
+
+    private List<Product> addProducts(List<Product> newProducts) {
+        productJournal.appendAddedProducts(newProducts);
+        List<List<Product>> newProductsPerStripe = new ArrayList<>(stripes.length);
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            newProductsPerStripe.add(new ArrayList<>(newProducts.size() / stripes.length + 1));
+        }
+        newProducts.forEach(newProduct -> newProductsPerStripe.get(stripeFor(newProduct.id())).add(newProduct));
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            List<Product> newProductsForStripe = newProductsPerStripe.get(stripe);
+            if (!newProductsForStripe.isEmpty()) {
+                write(stripe, warehouse -> {
+                    warehouse.addProducts(newProductsForStripe);
+                    newProductsForStripe.forEach(numberOfProductsPerCategory::addProduct);
+                    resultCache.invalidate();
+                    productEvents.productsAdded(newProductsForStripe);
+                    return null;
+                });
+            }
+        }
+        return newProducts;
+    }
+
+    public List<Product> getProductList() {
+        return measured("getProductList", () -> collectingProducts(Warehouse::getProductList));
+    }
+
+    public WarehouseSnapshot snapshot() {
+        return measured("snapshot", this::frozenSnapshot);
+    }
+
+    private WarehouseSnapshot frozenSnapshot() {
+        Warehouse[] frozenStripes = new Warehouse[stripes.length];
+        for (ReadWriteLock lock : locks) {
+            lock.readLock().lock();
+        }
+        try {
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                frozenStripes[stripe] = stripes[stripe].frozen();
+            }
+        } finally {
+            for (ReadWriteLock lock : locks) {
+                lock.readLock().unlock();
+            }
+        }
+        return new WarehouseSnapshot(frozenStripes, queryExecution);
+    }
+
+    public Optional<Product> getAProductForItsId(UUID id) {
+        return measured("getAProductForItsId", () ->
+                read(stripeFor(id), warehouse -> warehouse.getAProductForItsId(id)));
+    }
+
+    public Product changeProductNameCategoryRating(UUID id, InputProductData inputProductData) {
+        return measured("changeProductNameCategoryRating", () -> {
+            Product updatedProduct = write(stripeFor(id), warehouse -> {
+                Product product = warehouse.getAProductForItsId(id).orElseThrow();
+                Product changedProduct = warehouse.changeProductNameCategoryRating(id, inputProductData);
+                numberOfProductsPerCategory.removeProduct(product);
+                numberOfProductsPerCategory.addProduct(changedProduct);
+                resultCache.invalidate();
+                productEvents.productUpdated(product, changedProduct);
+                return changedProduct;
+            });
+            return updatedProduct;
+        });
+    }
+
+    public Optional<Product> removeProduct(UUID id) {
+        return measured("removeProduct", () -> write(stripeFor(id), warehouse -> {
+            Optional<Product> removedProduct = warehouse.removeProduct(id);
+            removedProduct.ifPresent(product -> {
+                numberOfProductsPerCategory.removeProduct(product);
+                resultCache.invalidate();
+                productEvents.productRemoved(product);
+            });
+            return removedProduct;
+        }));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<UUID, List<Product>> getProductsPerId() {
+        return cached(() -> mergingProducts(Warehouse::getProductsPerId),
+                "getProductsPerId");
+    }
+
+    public Map<LocalDate, List<Product>> getProductsPerCreatedAt() {
+        return cached(() -> mergingProducts(Warehouse::getProductsPerCreatedAt),
+                "getProductsPerCreatedAt");
+    }
+
+    public Map<LocalDate, List<Product>> getProductsPerUpdatedAt() {
+        return cached(() -> mergingProducts(Warehouse::getProductsPerUpdatedAt),
+                "getProductsPerUpdatedAt");
+    }
+
+    public List<Product> getFilteredProductsByDate(LocalDate dateTwo) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getFilteredProductsByDate(dateTwo),
+                        Product::createdAt),
+                "getFilteredProductsByDate", dateTwo);
+    }
+
+    public List<Product> getProductsCreatedAfter(LocalDate date) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsCreatedAfter(date),
+                        Product::createdAt),
+                "getProductsCreatedAfter", date);
+    }
+
+    public List<Product> getProductsCreatedBefore(LocalDate date) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsCreatedBefore(date),
+                        Product::createdAt),
+                "getProductsCreatedBefore", date);
+    }
+
+    public List<Product> getProductsCreatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsCreatedBetween(fromDate, toDate),
+                        Product::createdAt),
+                "getProductsCreatedBetween", fromDate, toDate);
+    }
+
+    public List<Product> getProductsUpdatedAfter(LocalDate date) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsUpdatedAfter(date),
+                        Product::updatedAt),
+                "getProductsUpdatedAfter", date);
+    }
+
+    public List<Product> getProductsUpdatedBefore(LocalDate date) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsUpdatedBefore(date),
+                        Product::updatedAt),
+                "getProductsUpdatedBefore", date);
+    }
+
+    public List<Product> getProductsUpdatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsUpdatedBetween(fromDate, toDate),
+                        Product::updatedAt),
+                "getProductsUpdatedBetween", fromDate, toDate);
+    }
+
+    public List<Product> getAllUpdatedProducts() {
+        return cached(() -> collectingProducts(Warehouse::getAllUpdatedProducts),
+                "getAllUpdatedProducts");
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Category, List<Product>> getProductsPerCategory() {
+        return cached(() -> Collections.unmodifiableMap(
+                    mergingProducts(Warehouse::getProductsPerCategory, () -> new EnumMap<>(Category.class))),
+                "getProductsPerCategory");
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategory(Category category) {
+        return measured("getSortedProductsForACategory", () ->
+                sortingProducts(warehouse -> warehouse.getSortedProductsForACategory(category), 0, Integer.MAX_VALUE));
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategory(Category category, int offset, int limit) {
+        int stripeLimit = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        return measured("getSortedProductsForACategory", () ->
+                sortingProducts(warehouse -> warehouse.getSortedProductsForACategory(category, 0, stripeLimit),
+                        offset, limit));
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategoryAfter(Category category, Product lastProduct,
+                                                                      int limit) {
+        return measured("getSortedProductsForACategoryAfter", () ->
+                sortingProducts(warehouse -> warehouse.getSortedProductsForACategoryAfter(category, lastProduct,
+                        limit), 0, limit));
+    }
+
+    private Warehouse.SortedProducts sortingProducts(Function<Warehouse, Warehouse.SortedProducts> query,
+                                                     int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        return collectingProducts(warehouse -> query.apply(warehouse).product()).stream()
+                .sorted(Warehouse.SortedProducts.comparingByNameAndId())
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Warehouse.SortedProducts::new));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Category, Long> getNumberOfProductsPerCategory() {
+        return cached(() -> numberOfProductsPerCategory.numberOfProductsPerCategory(),
+                "getNumberOfProductsPerCategory");
+    }
+
+    public long getNumberOfProductsForACategory(Category category) {
+        return measured("getNumberOfProductsForACategory", () ->
+                numberOfProductsPerCategory.numberOfProducts(category));
+    }
+
+    public List<Category> getAllCategoriesWithProducts() {
+        return cached(() -> numberOfProductsPerCategory.categoriesWithProducts(),
+                "getAllCategoriesWithProducts");
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Character, List<Product>> getProductsPerFirstLetter() {
+        return cached(() -> mergingProducts(Warehouse::getProductsPerFirstLetter),
+                "getProductsPerFirstLetter");
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix) {
+        return getProductsWithNamePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix, int limit) {
+        return cached(() -> collectingProducts(warehouse -> warehouse.getProductsWithNamePrefix(prefix, limit),
+                        product -> NamePrefixIndex.normalizedName(product.name())).stream()
+                        .limit(limit)
+                        .toList(),
+                "getProductsWithNamePrefix", prefix, limit);
+    }
+
+    public List<String> autocompleteProductNames(String prefix, int limit) {
+        return cached(() -> {
+            Map<String, String> namesPerNormalizedName = new TreeMap<>();
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                read(stripe, warehouse -> {
+                    warehouse.autocompleteProductNames(prefix, limit).forEach(name ->
+                            namesPerNormalizedName.putIfAbsent(NamePrefixIndex.normalizedName(name), name));
+                    return null;
+                });
+            }
+            return namesPerNormalizedName.values().stream()
+                    .limit(limit)
+                    .toList();
+        }, "autocompleteProductNames", prefix, limit);
+    }
+
+    public Map<Month, List<Product>> getProductsPerCreatedAtMonth() {
+        return cached(() -> Collections.unmodifiableMap(
+                    mergingProducts(Warehouse::getProductsPerCreatedAtMonth, () -> new EnumMap<>(Month.class))),
+                "getProductsPerCreatedAtMonth");
+    }
+
+    public List<Product> getProductsForAMonth(Month month) {
+        return measured("getProductsForAMonth", () ->
+                collectingProducts(warehouse -> warehouse.getProductsForAMonth(month)));
+    }
+
+    public NavigableMap<YearMonth, List<Product>> getProductsPerCreatedAtYearMonth() {
+        return cached(() -> mergingSortedProducts(Warehouse::getProductsPerCreatedAtYearMonth),
+                "getProductsPerCreatedAtYearMonth");
+    }
+
+    public List<Product> getProductsForAYearMonth(YearMonth yearMonth) {
+        return measured("getProductsForAYearMonth", () ->
+                collectingProducts(warehouse -> warehouse.getProductsForAYearMonth(yearMonth)));
+    }
+
+    public List<Product> getProductsCreatedInLastMonths(YearMonth lastMonth, int numberOfMonths) {
+        return cached(() -> collectingProducts(
+                        warehouse -> warehouse.getProductsCreatedInLastMonths(lastMonth, numberOfMonths),
+                        product -> YearMonth.from(product.createdAt())),
+                "getProductsCreatedInLastMonths", lastMonth, numberOfMonths);
+    }
+
+    public NavigableMap<LocalDate, List<Product>> getProductsPerCreatedAtWeek() {
+        return cached(() -> mergingSortedProducts(Warehouse::getProductsPerCreatedAtWeek),
+                "getProductsPerCreatedAtWeek");
+    }
+
+    public List<Product> getProductsCreatedInLastWeeks(LocalDate lastDay, int numberOfWeeks) {
+        return cached(() -> collectingProducts(
+                        warehouse -> warehouse.getProductsCreatedInLastWeeks(lastDay, numberOfWeeks),
+                        product -> Warehouse.ProductsPerMonth.firstDayOfWeek(product.createdAt())),
+                "getProductsCreatedInLastWeeks", lastDay, numberOfWeeks);
+    }
+
+    public List<Product> getProductsCreatedInLastDays(LocalDate lastDay, int numberOfDays) {
+        return cached(() -> collectingProducts(
+                        warehouse -> warehouse.getProductsCreatedInLastDays(lastDay, numberOfDays),
+                        Product::createdAt),
+                "getProductsCreatedInLastDays", lastDay, numberOfDays);
+    }
+
+    public List<Product> getSortedProductsWithMaxRatingForThisMonthByCreatedAt(Warehouse.ThisMonth thisMonth) {
+        return measured("getSortedProductsWithMaxRatingForThisMonthByCreatedAt", () ->
+                sortedProductsWithMaxRating(thisMonth));
+    }
+
+    private List<Product> sortedProductsWithMaxRating(Warehouse.ThisMonth thisMonth) {
+        List<Product> productsWithMaxRatingPerStripe =
+                collectingProducts(warehouse -> warehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(thisMonth));
+        if (productsWithMaxRatingPerStripe.isEmpty()) {
+            return List.of();
+        }
+
+        final double maxRating = productsWithMaxRatingPerStripe.stream()
+                .mapToDouble(Product::rating)
+                .max()
+                .orElseThrow();
+
+        return productsWithMaxRatingPerStripe.stream()
+                .filter(product -> Warehouse.ProductsPerMonth.productHasMaxRating(product, maxRating))
+                .sorted(TopRatedProducts.comparingByRatingAndCreatedAt())
+                .toList();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> getTopRatedProducts(int numberOfProducts) {
+        return cached(() -> mergingTopRated(warehouse -> warehouse.getTopRatedProducts(numberOfProducts),
+                numberOfProducts), "getTopRatedProducts", numberOfProducts);
+    }
+
+    public List<Product> getTopRatedProductsForACategory(Category category, int numberOfProducts) {
+        return measured("getTopRatedProductsForACategory", () -> mergingTopRated(
+                warehouse -> warehouse.getTopRatedProductsForACategory(category, numberOfProducts), numberOfProducts));
+    }
+
+    public List<Product> getTopRatedProductsForAMonth(Month month, int numberOfProducts) {
+        return measured("getTopRatedProductsForAMonth", () -> mergingTopRated(
+                warehouse -> warehouse.getTopRatedProductsForAMonth(month, numberOfProducts), numberOfProducts));
+    }
+
+    private List<Product> mergingTopRated(Function<Warehouse, List<Product>> query, int numberOfProducts) {
+        TopRatedProducts.checkNumberOfProducts(numberOfProducts);
+        List<List<Product>> topRatedPerStripe = new ArrayList<>(stripes.length);
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            topRatedPerStripe.add(read(stripe, query));
+        }
+        return TopRatedProducts.mergingTopRated(topRatedPerStripe, numberOfProducts);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> findProducts(ProductQuery query) {
+        return measured("findProducts", () -> filteredProducts(query));
+    }
+
+    public <R> List<R> findProducts(ProductQuery query, Function<? super Product, ? extends R> projection) {
+        return measured("findProducts", () -> filteredProducts(query).stream().<R>map(projection).toList());
+    }
+
+    public <K> Map<K, List<Product>> findProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return measured("findProductsPer", () -> Collections.unmodifiableMap(
+                filteredProducts(query).stream()
+                        .collect(Collectors.groupingBy(key))));
+    }
+
+    public <K> Map<K, Long> countProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return measured("countProductsPer", () -> Collections.unmodifiableMap(
+                filteredProducts(query).stream()
+                        .collect(Collectors.groupingBy(key, Collectors.counting()))));
+    }
+
+    private List<Product> filteredProducts(ProductQuery query) {
+        return resultCache.get(List.of("findProducts", query), () -> {
+            Stream<Product> products = collectingProducts(warehouse -> warehouse.findProducts(query)).stream();
+            if (query.sortOrder().isPresent()) {
+                products = products.sorted(query.sortOrder().get());
+            }
+            return products.limit(query.limit()).toList();
+        });
+    }
+
+    QueryPlan explain(ProductQuery query) {
+        return measured("explain", () -> queryPlan(query));
+    }
+
+    private QueryPlan queryPlan(ProductQuery query) {
+        List<QueryPlan> queryPlans = new ArrayList<>(stripes.length);
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            queryPlans.add(read(stripe, warehouse -> warehouse.explain(query)));
+        }
+        return new QueryPlan(
+                queryPlans.stream().map(QueryPlan::index).distinct().collect(Collectors.joining(", ")),
+                queryPlans.stream().mapToLong(QueryPlan::estimatedProducts).sum());
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public ResultCache.Statistics getResultCacheStatistics() {
+        return resultCache.statistics();
+    }
+
+    public WarehouseMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ProductEventPublisher productEvents() {
+        return productEvents;
+    }
+
+    private <T> T cached(Supplier<T> query, String method, Object... parameters) {
+        List<Object> key = new ArrayList<>(parameters.length + 1);
+        key.add(method);
+        Collections.addAll(key, parameters);
+        return measured(method, () -> resultCache.get(key, query));
+    }
+
+    private <T> T measured(String method, Supplier<T> call) {
+        return metrics.measure(method, call);
+    }
+}
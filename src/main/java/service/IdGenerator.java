@@ -0,0 +1,52 @@
+package service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+@FunctionalInterface
+public interface IdGenerator {
+    UUID nextId();
+
+    default IdGenerator forBatches() {
+        return this;
+    }
+
+    static IdGenerator secureRandom() {
+        return new IdGenerator() {
+            @Override
+            public UUID nextId() {
+                return UUID.randomUUID();
+            }
+
+            @Override
+            public IdGenerator forBatches() {
+                return threadLocalRandom();
+            }
+        };
+    }
+
+    static IdGenerator threadLocalRandom() {
+        return () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+            return new UUID(mostSignificantBits, randomVariantBits(random));
+        };
+    }
+
+    static IdGenerator timeOrdered() {
+        AtomicLong lastTimestampAndCounter = new AtomicLong();
+        return () -> {
+            long timestampAndCounter = lastTimestampAndCounter.updateAndGet(last ->
+                    Math.max(System.currentTimeMillis() << 12, last + 1));
+            long mostSignificantBits = ((timestampAndCounter >>> 12) << 16)
+                    | 0x7000L
+                    | (timestampAndCounter & 0xFFFL);
+            return new UUID(mostSignificantBits, randomVariantBits(ThreadLocalRandom.current()));
+        };
+    }
+
+    private static long randomVariantBits(ThreadLocalRandom random) {
+        return (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+    }
+}
@@ -0,0 +1,77 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        long nonNegativeValue = Math.max(0, value);
+        counts.incrementAndGet(bucket(nonNegativeValue));
+        maxValue.accumulate(nonNegativeValue);
+    }
+
+    long totalCount() {
+        long totalCount = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            totalCount += counts.get(bucket);
+        }
+        return totalCount;
+    }
+
+    long maxValue() {
+        return maxValue.get();
+    }
+
+    long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[NUMBER_OF_BUCKETS];
+        long totalCount = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+            totalCount += snapshot[bucket];
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+        long cumulativeCount = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            cumulativeCount += snapshot[bucket];
+            if (cumulativeCount >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(bucket), maxValue());
+            }
+        }
+        return maxValue();
+    }
+
+    void reset() {
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        maxValue.reset();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestEquivalentValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,71 @@
+package service;
+
+import entities.Product;
+import entities.ProductStore;
+
+import java.util.*;
+
+class NamePrefixIndex extends ProductRangeIndex<String> {
+    NamePrefixIndex(ProductStore productStore) {
+        super(product -> normalizedName(product.name()), productStore);
+    }
+
+    private NamePrefixIndex(NamePrefixIndex index, ProductStore productStore) {
+        super(index, productStore);
+    }
+
+    @Override
+    NamePrefixIndex frozen(ProductStore productStore) {
+        return new NamePrefixIndex(this, productStore);
+    }
+
+    static String normalizedName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    Collection<List<Product>> productsForNamesWithPrefix(String prefix) {
+        String normalizedPrefix = normalizedName(prefix);
+        String nextPrefix = nextPrefix(normalizedPrefix);
+        PositionsPerKey<String> positionsPerName = positionsPerKey();
+        int fromRank = positionsPerName.rank(normalizedPrefix, false);
+        int toRank = nextPrefix == null ? positionsPerName.size() : positionsPerName.rank(nextPrefix, false);
+        return products(positionsPerName.values(fromRank, toRank));
+    }
+
+    List<Product> productsWithPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        List<Product> products = new ArrayList<>(Math.min(limit, 1024));
+        for (List<Product> productsForName : productsForNamesWithPrefix(prefix)) {
+            for (Product product : productsForName) {
+                if (products.size() == limit) {
+                    return Collections.unmodifiableList(products);
+                }
+                products.add(product);
+            }
+        }
+        return Collections.unmodifiableList(products);
+    }
+
+    List<String> namesWithPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        return productsForNamesWithPrefix(prefix).stream()
+                .limit(limit)
+                .map(products -> products.getFirst().name())
+                .toList();
+    }
+
+    private static String nextPrefix(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+}
@@ -0,0 +1,9 @@
+package service;
+
+import entities.ProductOrder;
+
+interface OrderedProductIndexing extends ProductIndexing {
+    ProductOrder productOrder();
+
+    void addProducts(ProductOrder productOrder);
+}
@@ -0,0 +1,364 @@
+package service;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+final class PositionTree {
+    private static final int MAX_ENTRIES = 32;
+    private static final int MIN_ENTRIES = MAX_ENTRIES / 4;
+    private static final PositionTree EMPTY = new PositionTree(null);
+
+    interface Probe {
+        int compareTo(int position);
+    }
+
+    private final Node root;
+
+    private PositionTree(Node root) {
+        this.root = root;
+    }
+
+    static PositionTree empty() {
+        return EMPTY;
+    }
+
+    static PositionTree of(int[] sortedPositions) {
+        if (sortedPositions.length == 0) {
+            return EMPTY;
+        }
+        List<Node> nodes = new ArrayList<>(sortedPositions.length / MAX_ENTRIES + 1);
+        for (int from = 0; from < sortedPositions.length; from += MAX_ENTRIES) {
+            nodes.add(new Leaf(Arrays.copyOfRange(sortedPositions, from,
+                    Math.min(from + MAX_ENTRIES, sortedPositions.length))));
+        }
+        while (nodes.size() > 1) {
+            List<Node> parents = new ArrayList<>(nodes.size() / MAX_ENTRIES + 1);
+            for (int from = 0; from < nodes.size(); from += MAX_ENTRIES) {
+                parents.add(new Branch(nodes.subList(from, Math.min(from + MAX_ENTRIES, nodes.size()))
+                        .toArray(Node[]::new)));
+            }
+            nodes = parents;
+        }
+        return new PositionTree(nodes.getFirst());
+    }
+
+    int size() {
+        return root == null ? 0 : root.size();
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    PositionTree insert(int position, Probe probe) {
+        if (root == null) {
+            return new PositionTree(new Leaf(new int[]{position}));
+        }
+        Node[] nodes = root.insert(position, probe);
+        return new PositionTree(nodes.length == 1 ? nodes[0] : new Branch(nodes));
+    }
+
+    PositionTree remove(Probe probe) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(probe);
+        if (newRoot == root) {
+            return this;
+        }
+        while (newRoot instanceof Branch branch && branch.children.length == 1) {
+            newRoot = branch.children[0];
+        }
+        return newRoot == null ? EMPTY : new PositionTree(newRoot);
+    }
+
+    int rank(Probe probe) {
+        return root == null ? 0 : root.rank(probe);
+    }
+
+    int position(int rank) {
+        Objects.checkIndex(rank, size());
+        return root.position(rank);
+    }
+
+    void forEach(int fromRank, int toRank, IntConsumer action) {
+        Objects.checkFromToIndex(fromRank, toRank, size());
+        if (fromRank < toRank) {
+            root.forEach(fromRank, toRank, action);
+        }
+    }
+
+    <T> List<T> view(int fromRank, int toRank, IntFunction<T> elements) {
+        Objects.checkFromToIndex(fromRank, toRank, size());
+        return new RankedView<>(this, fromRank, toRank, elements);
+    }
+
+    private static final class RankedView<T> extends AbstractList<T> implements RandomAccess {
+        private final PositionTree positions;
+        private final int fromRank;
+        private final int size;
+        private final IntFunction<T> elements;
+
+        private RankedView(PositionTree positions, int fromRank, int toRank, IntFunction<T> elements) {
+            this.positions = positions;
+            this.fromRank = fromRank;
+            this.size = toRank - fromRank;
+            this.elements = elements;
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return elements.apply(positions.position(fromRank + index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private abstract static sealed class Node permits Leaf, Branch {
+        abstract int size();
+
+        abstract int firstPosition();
+
+        abstract int numberOfEntries();
+
+        abstract Node[] insert(int position, Probe probe);
+
+        abstract Node remove(Probe probe);
+
+        abstract int rank(Probe probe);
+
+        abstract int position(int rank);
+
+        abstract void forEach(int fromRank, int toRank, IntConsumer action);
+
+        abstract Node merge(Node next);
+    }
+
+    private static final class Leaf extends Node {
+        private final int[] positions;
+
+        private Leaf(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        int size() {
+            return positions.length;
+        }
+
+        @Override
+        int firstPosition() {
+            return positions[0];
+        }
+
+        @Override
+        int numberOfEntries() {
+            return positions.length;
+        }
+
+        @Override
+        Node[] insert(int position, Probe probe) {
+            int index = rank(probe);
+            int[] newPositions = new int[positions.length + 1];
+            System.arraycopy(positions, 0, newPositions, 0, index);
+            newPositions[index] = position;
+            System.arraycopy(positions, index, newPositions, index + 1, positions.length - index);
+            if (newPositions.length <= MAX_ENTRIES) {
+                return new Node[]{new Leaf(newPositions)};
+            }
+            int half = newPositions.length / 2;
+            return new Node[]{new Leaf(Arrays.copyOfRange(newPositions, 0, half)),
+                    new Leaf(Arrays.copyOfRange(newPositions, half, newPositions.length))};
+        }
+
+        @Override
+        Node remove(Probe probe) {
+            int index = rank(probe);
+            if (index == positions.length || probe.compareTo(positions[index]) != 0) {
+                return this;
+            }
+            if (positions.length == 1) {
+                return null;
+            }
+            int[] newPositions = new int[positions.length - 1];
+            System.arraycopy(positions, 0, newPositions, 0, index);
+            System.arraycopy(positions, index + 1, newPositions, index, newPositions.length - index);
+            return new Leaf(newPositions);
+        }
+
+        @Override
+        int rank(Probe probe) {
+            int low = 0;
+            int high = positions.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (probe.compareTo(positions[middle]) > 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        int position(int rank) {
+            return positions[rank];
+        }
+
+        @Override
+        void forEach(int fromRank, int toRank, IntConsumer action) {
+            for (int index = fromRank; index < toRank; index++) {
+                action.accept(positions[index]);
+            }
+        }
+
+        @Override
+        Node merge(Node next) {
+            int[] nextPositions = ((Leaf) next).positions;
+            int[] newPositions = Arrays.copyOf(positions, positions.length + nextPositions.length);
+            System.arraycopy(nextPositions, 0, newPositions, positions.length, nextPositions.length);
+            return new Leaf(newPositions);
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node[] children;
+        private final int[] firstPositions;
+        private final int[] offsets;
+        private final int size;
+
+        private Branch(Node[] children) {
+            this.children = children;
+            this.firstPositions = new int[children.length];
+            this.offsets = new int[children.length];
+            int offset = 0;
+            for (int child = 0; child < children.length; child++) {
+                firstPositions[child] = children[child].firstPosition();
+                offsets[child] = offset;
+                offset += children[child].size();
+            }
+            this.size = offset;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int firstPosition() {
+            return firstPositions[0];
+        }
+
+        @Override
+        int numberOfEntries() {
+            return children.length;
+        }
+
+        private int child(Probe probe, boolean inclusive) {
+            int low = 1;
+            int high = children.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = probe.compareTo(firstPositions[middle]);
+                if (comparison > 0 || inclusive && comparison == 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+
+        @Override
+        Node[] insert(int position, Probe probe) {
+            int child = child(probe, false);
+            Node[] newChildren = children[child].insert(position, probe);
+            Node[] allChildren = new Node[children.length + newChildren.length - 1];
+            System.arraycopy(children, 0, allChildren, 0, child);
+            System.arraycopy(newChildren, 0, allChildren, child, newChildren.length);
+            System.arraycopy(children, child + 1, allChildren, child + newChildren.length,
+                    children.length - child - 1);
+            if (allChildren.length <= MAX_ENTRIES) {
+                return new Node[]{new Branch(allChildren)};
+            }
+            int half = allChildren.length / 2;
+            return new Node[]{new Branch(Arrays.copyOfRange(allChildren, 0, half)),
+                    new Branch(Arrays.copyOfRange(allChildren, half, allChildren.length))};
+        }
+
+        @Override
+        Node remove(Probe probe) {
+            int child = child(probe, true);
+            Node oldChild = children[child];
+            Node newChild = oldChild.remove(probe);
+            if (newChild == oldChild) {
+                return this;
+            }
+            if (newChild == null) {
+                if (children.length == 1) {
+                    return null;
+                }
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(children, 0, newChildren, 0, child);
+                System.arraycopy(children, child + 1, newChildren, child, newChildren.length - child);
+                return new Branch(newChildren);
+            }
+            Node[] newChildren = children.clone();
+            newChildren[child] = newChild;
+            if (newChild.numberOfEntries() < MIN_ENTRIES && children.length > 1) {
+                int first = child == 0 ? 0 : child - 1;
+                if (newChildren[first].numberOfEntries() + newChildren[first + 1].numberOfEntries() <= MAX_ENTRIES) {
+                    Node[] mergedChildren = new Node[children.length - 1];
+                    System.arraycopy(newChildren, 0, mergedChildren, 0, first);
+                    mergedChildren[first] = newChildren[first].merge(newChildren[first + 1]);
+                    System.arraycopy(newChildren, first + 2, mergedChildren, first + 1,
+                            mergedChildren.length - first - 1);
+                    return new Branch(mergedChildren);
+                }
+            }
+            return new Branch(newChildren);
+        }
+
+        @Override
+        int rank(Probe probe) {
+            int child = child(probe, false);
+            return offsets[child] + children[child].rank(probe);
+        }
+
+        @Override
+        int position(int rank) {
+            int child = Arrays.binarySearch(offsets, rank);
+            if (child < 0) {
+                child = -child - 2;
+            }
+            return children[child].position(rank - offsets[child]);
+        }
+
+        @Override
+        void forEach(int fromRank, int toRank, IntConsumer action) {
+            for (int child = 0; child < children.length && offsets[child] < toRank; child++) {
+                int childEnd = offsets[child] + children[child].size();
+                if (childEnd > fromRank) {
+                    children[child].forEach(Math.max(fromRank, offsets[child]) - offsets[child],
+                            Math.min(toRank, childEnd) - offsets[child], action);
+                }
+            }
+        }
+
+        @Override
+        Node merge(Node next) {
+            Node[] nextChildren = ((Branch) next).children;
+            Node[] newChildren = Arrays.copyOf(children, children.length + nextChildren.length);
+            System.arraycopy(nextChildren, 0, newChildren, children.length, nextChildren.length);
+            return new Branch(newChildren);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package service;
+
+import entities.ProductOrder;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+final class PositionsPerKey<K extends Comparable<? super K>> {
+    private static final int MAX_ENTRIES = 32;
+    private static final int MIN_ENTRIES = MAX_ENTRIES / 4;
+    private static final PositionsPerKey<?> EMPTY = new PositionsPerKey<>(null);
+
+    private final Node root;
+
+    private PositionsPerKey(Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>> PositionsPerKey<K> empty() {
+        return (PositionsPerKey<K>) EMPTY;
+    }
+
+    static <K extends Comparable<? super K>> PositionsPerKey<K> of(SortedMap<K, PositionTree> sortedPositionsPerKey) {
+        if (sortedPositionsPerKey.isEmpty()) {
+            return empty();
+        }
+        Object[] keys = sortedPositionsPerKey.keySet().toArray();
+        PositionTree[] values = sortedPositionsPerKey.values().toArray(PositionTree[]::new);
+        List<Node> nodes = new ArrayList<>(keys.length / MAX_ENTRIES + 1);
+        for (int from = 0; from < keys.length; from += MAX_ENTRIES) {
+            int to = Math.min(from + MAX_ENTRIES, keys.length);
+            nodes.add(new Leaf(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to)));
+        }
+        while (nodes.size() > 1) {
+            List<Node> parents = new ArrayList<>(nodes.size() / MAX_ENTRIES + 1);
+            for (int from = 0; from < nodes.size(); from += MAX_ENTRIES) {
+                parents.add(new Branch(nodes.subList(from, Math.min(from + MAX_ENTRIES, nodes.size()))
+                        .toArray(Node[]::new)));
+            }
+            nodes = parents;
+        }
+        return new PositionsPerKey<>(nodes.getFirst());
+    }
+
+    static <K extends Comparable<? super K>> PositionsPerKey<K> of(ProductOrder productOrder,
+                                                                  IntFunction<K> keyForPosition) {
+        SortedMap<K, PositionTree> sortedPositionsPerKey = new TreeMap<>();
+        int groupStart = 0;
+        for (int groupEnd : productOrder.groupEnds()) {
+            int[] positions = Arrays.copyOfRange(productOrder.positions(), groupStart, groupEnd);
+            sortedPositionsPerKey.put(keyForPosition.apply(positions[0]), PositionTree.of(positions));
+            groupStart = groupEnd;
+        }
+        return of(sortedPositionsPerKey);
+    }
+
+    ProductOrder productOrder() {
+        List<PositionTree> positionsPerKey = new ArrayList<>(size());
+        forEach((key, positions) -> positionsPerKey.add(positions));
+        int[] groupEnds = new int[positionsPerKey.size()];
+        int numberOfPositions = 0;
+        for (int group = 0; group < groupEnds.length; group++) {
+            numberOfPositions += positionsPerKey.get(group).size();
+            groupEnds[group] = numberOfPositions;
+        }
+        int[] sortedPositions = new int[numberOfPositions];
+        for (int group = 0; group < groupEnds.length; group++) {
+            int[] index = {group == 0 ? 0 : groupEnds[group - 1]};
+            PositionTree positions = positionsPerKey.get(group);
+            positions.forEach(0, positions.size(), position -> sortedPositions[index[0]++] = position);
+        }
+        return new ProductOrder(sortedPositions, groupEnds);
+    }
+
+    int size() {
+        return root == null ? 0 : root.size();
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    PositionTree get(K key) {
+        return root == null ? null : root.get(key);
+    }
+
+    PositionTree getOrEmpty(K key) {
+        PositionTree positions = get(key);
+        return positions == null ? PositionTree.empty() : positions;
+    }
+
+    PositionsPerKey<K> with(K key, PositionTree positions) {
+        if (positions.isEmpty()) {
+            return without(key);
+        }
+        if (root == null) {
+            return new PositionsPerKey<>(new Leaf(new Object[]{key}, new PositionTree[]{positions}));
+        }
+        Node[] nodes = root.with(key, positions);
+        return new PositionsPerKey<>(nodes.length == 1 ? nodes[0] : new Branch(nodes));
+    }
+
+    PositionsPerKey<K> without(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.without(key);
+        if (newRoot == root) {
+            return this;
+        }
+        while (newRoot instanceof Branch branch && branch.children.length == 1) {
+            newRoot = branch.children[0];
+        }
+        return newRoot == null ? empty() : new PositionsPerKey<>(newRoot);
+    }
+
+    int rank(K key, boolean inclusive) {
+        return root == null ? 0 : root.rank(key, inclusive);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(int fromRank, int toRank, BiConsumer<? super K, PositionTree> action) {
+        Objects.checkFromToIndex(fromRank, toRank, size());
+        if (fromRank < toRank) {
+            root.forEach(fromRank, toRank, (key, positions) -> action.accept((K) key, positions));
+        }
+    }
+
+    void forEach(BiConsumer<? super K, PositionTree> action) {
+        forEach(0, size(), action);
+    }
+
+    List<PositionTree> values(int fromRank, int toRank) {
+        Objects.checkFromToIndex(fromRank, toRank, size());
+        return new AbstractList<>() {
+            @Override
+            public PositionTree get(int index) {
+                Objects.checkIndex(index, toRank - fromRank);
+                return root.value(fromRank + index);
+            }
+
+            @Override
+            public int size() {
+                return toRank - fromRank;
+            }
+        };
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    @SuppressWarnings("unchecked")
+    private static int compare(Object key, Object otherKey) {
+        return ((Comparable<Object>) key).compareTo(otherKey);
+    }
+
+    private abstract static sealed class Node permits Leaf, Branch {
+        abstract int size();
+
+        abstract Object firstKey();
+
+        abstract int numberOfEntries();
+
+        abstract PositionTree get(Object key);
+
+        abstract Node[] with(Object key, PositionTree positions);
+
+        abstract Node without(Object key);
+
+        abstract int rank(Object key, boolean inclusive);
+
+        abstract PositionTree value(int rank);
+
+        abstract void forEach(int fromRank, int toRank, BiConsumer<Object, PositionTree> action);
+
+        abstract Node merge(Node next);
+    }
+
+    private static final class Leaf extends Node {
+        private final Object[] keys;
+        private final PositionTree[] values;
+
+        private Leaf(Object[] keys, PositionTree[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        int size() {
+            return keys.length;
+        }
+
+        @Override
+        Object firstKey() {
+            return keys[0];
+        }
+
+        @Override
+        int numberOfEntries() {
+            return keys.length;
+        }
+
+        private int index(Object key) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(keys[middle], key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        @Override
+        PositionTree get(Object key) {
+            int index = index(key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        Node[] with(Object key, PositionTree positions) {
+            int index = index(key);
+            if (index >= 0) {
+                PositionTree[] newValues = values.clone();
+                newValues[index] = positions;
+                return new Node[]{new Leaf(keys, newValues)};
+            }
+            index = -index - 1;
+            Object[] newKeys = new Object[keys.length + 1];
+            PositionTree[] newValues = new PositionTree[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(values, 0, newValues, 0, index);
+            newKeys[index] = key;
+            newValues[index] = positions;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(values, index, newValues, index + 1, values.length - index);
+            if (newKeys.length <= MAX_ENTRIES) {
+                return new Node[]{new Leaf(newKeys, newValues)};
+            }
+            int half = newKeys.length / 2;
+            return new Node[]{
+                    new Leaf(Arrays.copyOfRange(newKeys, 0, half), Arrays.copyOfRange(newValues, 0, half)),
+                    new Leaf(Arrays.copyOfRange(newKeys, half, newKeys.length),
+                            Arrays.copyOfRange(newValues, half, newValues.length))};
+        }
+
+        @Override
+        Node without(Object key) {
+            int index = index(key);
+            if (index < 0) {
+                return this;
+            }
+            if (keys.length == 1) {
+                return null;
+            }
+            Object[] newKeys = new Object[keys.length - 1];
+            PositionTree[] newValues = new PositionTree[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, newKeys.length - index);
+            System.arraycopy(values, index + 1, newValues, index, newValues.length - index);
+            return new Leaf(newKeys, newValues);
+        }
+
+        @Override
+        int rank(Object key, boolean inclusive) {
+            int index = index(key);
+            if (index < 0) {
+                return -index - 1;
+            }
+            return inclusive ? index + 1 : index;
+        }
+
+        @Override
+        PositionTree value(int rank) {
+            return values[rank];
+        }
+
+        @Override
+        void forEach(int fromRank, int toRank, BiConsumer<Object, PositionTree> action) {
+            for (int index = fromRank; index < toRank; index++) {
+                action.accept(keys[index], values[index]);
+            }
+        }
+
+        @Override
+        Node merge(Node next) {
+            Leaf nextLeaf = (Leaf) next;
+            Object[] newKeys = Arrays.copyOf(keys, keys.length + nextLeaf.keys.length);
+            PositionTree[] newValues = Arrays.copyOf(values, values.length + nextLeaf.values.length);
+            System.arraycopy(nextLeaf.keys, 0, newKeys, keys.length, nextLeaf.keys.length);
+            System.arraycopy(nextLeaf.values, 0, newValues, values.length, nextLeaf.values.length);
+            return new Leaf(newKeys, newValues);
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node[] children;
+        private final Object[] firstKeys;
+        private final int[] offsets;
+        private final int size;
+
+        private Branch(Node[] children) {
+            this.children = children;
+            this.firstKeys = new Object[children.length];
+            this.offsets = new int[children.length];
+            int offset = 0;
+            for (int child = 0; child < children.length; child++) {
+                firstKeys[child] = children[child].firstKey();
+                offsets[child] = offset;
+                offset += children[child].size();
+            }
+            this.size = offset;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        Object firstKey() {
+            return firstKeys[0];
+        }
+
+        @Override
+        int numberOfEntries() {
+            return children.length;
+        }
+
+        private int child(Object key) {
+            int low = 1;
+            int high = children.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(firstKeys[middle], key) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+
+        @Override
+        PositionTree get(Object key) {
+            return children[child(key)].get(key);
+        }
+
+        @Override
+        Node[] with(Object key, PositionTree positions) {
+            int child = child(key);
+            Node[] newChildren = children[child].with(key, positions);
+            Node[] allChildren = new Node[children.length + newChildren.length - 1];
+            System.arraycopy(children, 0, allChildren, 0, child);
+            System.arraycopy(newChildren, 0, allChildren, child, newChildren.length);
+            System.arraycopy(children, child + 1, allChildren, child + newChildren.length,
+                    children.length - child - 1);
+            if (allChildren.length <= MAX_ENTRIES) {
+                return new Node[]{new Branch(allChildren)};
+            }
+            int half = allChildren.length / 2;
+            return new Node[]{new Branch(Arrays.copyOfRange(allChildren, 0, half)),
+                    new Branch(Arrays.copyOfRange(allChildren, half, allChildren.length))};
+        }
+
+        @Override
+        Node without(Object key) {
+            int child = child(key);
+            Node oldChild = children[child];
+            Node newChild = oldChild.without(key);
+            if (newChild == oldChild) {
+                return this;
+            }
+            if (newChild == null) {
+                if (children.length == 1) {
+                    return null;
+                }
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(children, 0, newChildren, 0, child);
+                System.arraycopy(children, child + 1, newChildren, child, newChildren.length - child);
+                return new Branch(newChildren);
+            }
+            Node[] newChildren = children.clone();
+            newChildren[child] = newChild;
+            if (newChild.numberOfEntries() < MIN_ENTRIES && children.length > 1) {
+                int first = child == 0 ? 0 : child - 1;
+                if (newChildren[first].numberOfEntries() + newChildren[first + 1].numberOfEntries() <= MAX_ENTRIES) {
+                    Node[] mergedChildren = new Node[children.length - 1];
+                    System.arraycopy(newChildren, 0, mergedChildren, 0, first);
+                    mergedChildren[first] = newChildren[first].merge(newChildren[first + 1]);
+                    System.arraycopy(newChildren, first + 2, mergedChildren, first + 1,
+                            mergedChildren.length - first - 1);
+                    return new Branch(mergedChildren);
+                }
+            }
+            return new Branch(newChildren);
+        }
+
+        @Override
+        int rank(Object key, boolean inclusive) {
+            int child = child(key);
+            return offsets[child] + children[child].rank(key, inclusive);
+        }
+
+        @Override
+        PositionTree value(int rank) {
+            int child = Arrays.binarySearch(offsets, rank);
+            if (child < 0) {
+                child = -child - 2;
+            }
+            return children[child].value(rank - offsets[child]);
+        }
+
+        @Override
+        void forEach(int fromRank, int toRank, BiConsumer<Object, PositionTree> action) {
+            for (int child = 0; child < children.length && offsets[child] < toRank; child++) {
+                int childEnd = offsets[child] + children[child].size();
+                if (childEnd > fromRank) {
+                    children[child].forEach(Math.max(fromRank, offsets[child]) - offsets[child],
+                            Math.min(toRank, childEnd) - offsets[child], action);
+                }
+            }
+        }
+
+        @Override
+        Node merge(Node next) {
+            Node[] nextChildren = ((Branch) next).children;
+            Node[] newChildren = Arrays.copyOf(children, children.length + nextChildren.length);
+            System.arraycopy(nextChildren, 0, newChildren, children.length, nextChildren.length);
+            return new Branch(newChildren);
+        }
+    }
+}
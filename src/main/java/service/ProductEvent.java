@@ -0,0 +1,18 @@
+package service;
+
+import entities.Product;
+
+public sealed interface ProductEvent {
+    long sequence();
+
+    Product product();
+
+    record Added(long sequence, Product product) implements ProductEvent {
+    }
+
+    record Updated(long sequence, Product previousProduct, Product product) implements ProductEvent {
+    }
+
+    record Removed(long sequence, Product product) implements ProductEvent {
+    }
+}
@@ -0,0 +1,118 @@
+package service;
+
+import entities.Product;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+public final class ProductEventPublisher implements Flow.Publisher<ProductEvent>, AutoCloseable {
+    private static final ProductEventPublisher DISABLED = new ProductEventPublisher(null, null);
+
+    private final SubmissionPublisher<ProductEvent> publisher;
+    private final ExecutorService ownedExecutor;
+    private final LongAdder droppedEvents = new LongAdder();
+    private long sequence;
+
+    public ProductEventPublisher() {
+        this(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-events-", 0).factory()));
+    }
+
+    public ProductEventPublisher(Executor executor, int maxBufferCapacity) {
+        this(new SubmissionPublisher<>(executor, maxBufferCapacity), null);
+    }
+
+    private ProductEventPublisher(ExecutorService ownedExecutor) {
+        this(new SubmissionPublisher<>(ownedExecutor, Flow.defaultBufferSize()), ownedExecutor);
+    }
+
+    private ProductEventPublisher(SubmissionPublisher<ProductEvent> publisher, ExecutorService ownedExecutor) {
+        this.publisher = publisher;
+        this.ownedExecutor = ownedExecutor;
+    }
+
+    public static ProductEventPublisher disabled() {
+        return DISABLED;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProductEvent> subscriber) {
+        if (publisher != null) {
+            publisher.subscribe(subscriber);
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onComplete();
+    }
+
+    public int getNumberOfSubscribers() {
+        return publisher == null ? 0 : publisher.getNumberOfSubscribers();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void close() {
+        if (publisher != null) {
+            publisher.close();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    void productAdded(Product product) {
+        if (hasSubscribers()) {
+            offer(sequence -> new ProductEvent.Added(sequence, product));
+        }
+    }
+
+    void productsAdded(List<Product> products) {
+        if (hasSubscribers()) {
+            products.forEach(product -> offer(sequence -> new ProductEvent.Added(sequence, product)));
+        }
+    }
+
+    void productUpdated(Product previousProduct, Product product) {
+        if (hasSubscribers()) {
+            offer(sequence -> new ProductEvent.Updated(sequence, previousProduct, product));
+        }
+    }
+
+    void productRemoved(Product product) {
+        if (hasSubscribers()) {
+            offer(sequence -> new ProductEvent.Removed(sequence, product));
+        }
+    }
+
+    private boolean hasSubscribers() {
+        return publisher != null && publisher.hasSubscribers();
+    }
+
+    private synchronized void offer(LongFunction<ProductEvent> event) {
+        try {
+            publisher.offer(event.apply(++sequence), (subscriber, droppedEvent) -> {
+                droppedEvents.increment();
+                return false;
+            });
+        } catch (IllegalStateException exception) {
+            droppedEvents.increment();
+        }
+    }
+}
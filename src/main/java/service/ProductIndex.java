@@ -0,0 +1,170 @@
+package service;
+
+import entities.Product;
+import entities.ProductOrder;
+import entities.ProductStore;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+class ProductIndex<K extends Comparable<? super K>> implements OrderedProductIndexing {
+    private final Function<Product, K> function;
+    private final Predicate<Product> predicate;
+    private final ProductStore productStore;
+    private volatile PositionsPerKey<K> positionsPerKey;
+    private volatile Map<K, List<Product>> view;
+
+    ProductIndex(Function<Product, K> function, ProductStore productStore) {
+        this(function, product -> true, productStore);
+    }
+
+    ProductIndex(Function<Product, K> function, Predicate<Product> predicate, ProductStore productStore) {
+        this(function, predicate, productStore, PositionsPerKey.empty());
+    }
+
+    private ProductIndex(Function<Product, K> function, Predicate<Product> predicate, ProductStore productStore,
+                         PositionsPerKey<K> positionsPerKey) {
+        this.function = function;
+        this.predicate = predicate;
+        this.productStore = productStore;
+        this.positionsPerKey = positionsPerKey;
+    }
+
+    ProductIndex(ProductIndex<K> index, ProductStore productStore) {
+        this(index.function, index.predicate, productStore, index.positionsPerKey);
+    }
+
+    ProductIndex<K> frozen(ProductStore productStore) {
+        return new ProductIndex<>(this, productStore);
+    }
+
+    private void changePositions(PositionsPerKey<K> newPositionsPerKey) {
+        positionsPerKey = newPositionsPerKey;
+        positionsChanged();
+    }
+
+    void positionsChanged() {
+        view = null;
+    }
+
+    private static PositionTree.Probe entry(int position) {
+        return otherPosition -> Integer.compare(position, otherPosition);
+    }
+
+    @Override
+    public void addProduct(int position, Product product) {
+        if (predicate.test(product)) {
+            K key = function.apply(product);
+            PositionTree positions = positionsPerKey.getOrEmpty(key);
+            changePositions(positionsPerKey.with(key, positions.insert(position, entry(position))));
+        }
+    }
+
+    @Override
+    public void addProducts(int firstPosition, List<Product> products) {
+        SortedMap<K, IntStream.Builder> positionsPerNewKey = new TreeMap<>();
+        for (int index = 0; index < products.size(); index++) {
+            Product product = products.get(index);
+            if (predicate.test(product)) {
+                positionsPerNewKey.computeIfAbsent(function.apply(product), key -> IntStream.builder())
+                        .add(firstPosition + index);
+            }
+        }
+        if (positionsPerKey.isEmpty()) {
+            SortedMap<K, PositionTree> newPositionsPerKey = new TreeMap<>();
+            positionsPerNewKey.forEach((key, positions) ->
+                    newPositionsPerKey.put(key, PositionTree.of(positions.build().toArray())));
+            changePositions(PositionsPerKey.of(newPositionsPerKey));
+            return;
+        }
+        PositionsPerKey<K> newPositionsPerKey = positionsPerKey;
+        for (Map.Entry<K, IntStream.Builder> positionsForNewKey : positionsPerNewKey.entrySet()) {
+            PositionTree positions = newPositionsPerKey.getOrEmpty(positionsForNewKey.getKey());
+            for (int position : positionsForNewKey.getValue().build().toArray()) {
+                positions = positions.insert(position, entry(position));
+            }
+            newPositionsPerKey = newPositionsPerKey.with(positionsForNewKey.getKey(), positions);
+        }
+        changePositions(newPositionsPerKey);
+    }
+
+    @Override
+    public void addProducts(ProductOrder productOrder) {
+        if (!positionsPerKey.isEmpty()) {
+            for (int position : productOrder.positions()) {
+                addProduct(position, productStore.product(position));
+            }
+            return;
+        }
+        changePositions(PositionsPerKey.of(productOrder,
+                position -> function.apply(productStore.product(position))));
+    }
+
+    @Override
+    public ProductOrder productOrder() {
+        return positionsPerKey.productOrder();
+    }
+
+    @Override
+    public void removeProduct(int position, Product product) {
+        if (!predicate.test(product)) {
+            return;
+        }
+        K key = function.apply(product);
+        PositionTree positions = positionsPerKey.get(key);
+        if (positions != null) {
+            changePositions(positionsPerKey.with(key, positions.remove(entry(position))));
+        }
+    }
+
+    PositionsPerKey<K> positionsPerKey() {
+        return positionsPerKey;
+    }
+
+    Map<K, List<Product>> productsPerKey() {
+        Map<K, List<Product>> productsPerKey = view;
+        if (productsPerKey == null) {
+            productsPerKey = Collections.unmodifiableMap(productsPerKey(new HashMap<>()));
+            view = productsPerKey;
+        }
+        return productsPerKey;
+    }
+
+    <M extends Map<K, List<Product>>> M productsPerKey(M productsPerKey) {
+        IntFunction<Product> products = productStore.frozen()::product;
+        positionsPerKey.forEach((key, positions) ->
+                productsPerKey.put(key, positions.view(0, positions.size(), products)));
+        return productsPerKey;
+    }
+
+    List<Product> productsForKey(K key) {
+        PositionTree positions = positionsPerKey.get(key);
+        return positions == null ? List.of() : positions.view(0, positions.size(), productStore.frozen()::product);
+    }
+
+    Collection<List<Product>> products(List<PositionTree> positionsPerKey) {
+        IntFunction<Product> products = productStore.frozen()::product;
+        return new AbstractList<>() {
+            @Override
+            public List<Product> get(int index) {
+                PositionTree positions = positionsPerKey.get(index);
+                return positions.view(0, positions.size(), products);
+            }
+
+            @Override
+            public int size() {
+                return positionsPerKey.size();
+            }
+        };
+    }
+
+    List<Product> flatteningProducts(List<PositionTree> positionsPerKey) {
+        List<Product> flattenedProducts = new ArrayList<>();
+        positionsPerKey.forEach(positions -> positions.forEach(0, positions.size(),
+                position -> flattenedProducts.add(productStore.product(position))));
+        return Collections.unmodifiableList(flattenedProducts);
+    }
+}
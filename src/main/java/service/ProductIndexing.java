@@ -0,0 +1,21 @@
+package service;
+
+import entities.Product;
+
+import java.util.List;
+
+interface ProductIndexing {
+    void addProduct(int position, Product product);
+
+    void removeProduct(int position, Product product);
+
+    default void addProducts(List<Product> products) {
+        addProducts(0, products);
+    }
+
+    default void addProducts(int firstPosition, List<Product> products) {
+        for (int index = 0; index < products.size(); index++) {
+            addProduct(firstPosition + index, products.get(index));
+        }
+    }
+}
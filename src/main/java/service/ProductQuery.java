@@ -0,0 +1,174 @@
+package service;
+
+import entities.Category;
+import entities.Product;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+public final class ProductQuery {
+    private static final ProductQuery ALL_PRODUCTS = new ProductQuery(null, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, null, null, null, null, null, null, Integer.MAX_VALUE);
+
+    private final Category category;
+    private final double minRating;
+    private final double maxRating;
+    private final LocalDate createdFrom;
+    private final LocalDate createdTo;
+    private final LocalDate updatedFrom;
+    private final LocalDate updatedTo;
+    private final String namePrefix;
+    private final Comparator<Product> sortOrder;
+    private final int limit;
+
+    private ProductQuery(Category category, double minRating, double maxRating, LocalDate createdFrom,
+                         LocalDate createdTo, LocalDate updatedFrom, LocalDate updatedTo, String namePrefix,
+                         Comparator<Product> sortOrder, int limit) {
+        this.category = category;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.updatedFrom = updatedFrom;
+        this.updatedTo = updatedTo;
+        this.namePrefix = namePrefix;
+        this.sortOrder = sortOrder;
+        this.limit = limit;
+    }
+
+    public static ProductQuery allProducts() {
+        return ALL_PRODUCTS;
+    }
+
+    public ProductQuery inCategory(Category category) {
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery ratedBetween(double minRating, double maxRating) {
+        if (minRating > maxRating) {
+            throw new IllegalArgumentException("minRating must not be greater than maxRating");
+        }
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery createdBetween(LocalDate fromDate, LocalDate toDate) {
+        return new ProductQuery(category, minRating, maxRating, fromDate, toDate, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery updatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, fromDate, toDate,
+                namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery withNamePrefix(String namePrefix) {
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix == null || namePrefix.isEmpty() ? null : namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery sortedBy(Comparator<Product> sortOrder) {
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    public ProductQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        return new ProductQuery(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ProductQuery query
+                && category == query.category
+                && Double.compare(minRating, query.minRating) == 0
+                && Double.compare(maxRating, query.maxRating) == 0
+                && Objects.equals(createdFrom, query.createdFrom)
+                && Objects.equals(createdTo, query.createdTo)
+                && Objects.equals(updatedFrom, query.updatedFrom)
+                && Objects.equals(updatedTo, query.updatedTo)
+                && Objects.equals(namePrefix, query.namePrefix)
+                && Objects.equals(sortOrder, query.sortOrder)
+                && limit == query.limit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, minRating, maxRating, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sortOrder, limit);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    Optional<Category> category() {
+        return Optional.ofNullable(category);
+    }
+
+    boolean hasRatingRange() {
+        return minRating != Double.NEGATIVE_INFINITY || maxRating != Double.POSITIVE_INFINITY;
+    }
+
+    double minRating() {
+        return minRating;
+    }
+
+    double maxRating() {
+        return maxRating;
+    }
+
+    boolean hasCreatedRange() {
+        return createdFrom != null || createdTo != null;
+    }
+
+    LocalDate createdFrom() {
+        return createdFrom;
+    }
+
+    LocalDate createdTo() {
+        return createdTo;
+    }
+
+    boolean hasUpdatedRange() {
+        return updatedFrom != null || updatedTo != null;
+    }
+
+    LocalDate updatedFrom() {
+        return updatedFrom;
+    }
+
+    LocalDate updatedTo() {
+        return updatedTo;
+    }
+
+    Optional<String> namePrefix() {
+        return Optional.ofNullable(namePrefix);
+    }
+
+    Optional<Comparator<Product>> sortOrder() {
+        return Optional.ofNullable(sortOrder);
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    Predicate<Product> predicate() {
+        String normalizedNamePrefix = namePrefix == null ? null : NamePrefixIndex.normalizedName(namePrefix);
+        return product -> (category == null || product.category() == category)
+                && product.rating() >= minRating && product.rating() <= maxRating
+                && isWithin(product.createdAt(), createdFrom, createdTo)
+                && isWithin(product.updatedAt(), updatedFrom, updatedTo)
+                && (normalizedNamePrefix == null
+                || NamePrefixIndex.normalizedName(product.name()).startsWith(normalizedNamePrefix));
+    }
+
+    private static boolean isWithin(LocalDate date, LocalDate fromDate, LocalDate toDate) {
+        return (fromDate == null || !date.isBefore(fromDate)) && (toDate == null || !date.isAfter(toDate));
+    }
+}
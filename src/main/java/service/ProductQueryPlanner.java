@@ -0,0 +1,112 @@
+package service;
+
+import entities.Category;
+import entities.Product;
+import entities.ProductStore;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+class ProductQueryPlanner {
+    static final String FULL_SCAN = "full scan";
+
+    private static final UUID FIRST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID LAST_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final ProductStore productStore;
+    private final ProductIndex<Category> productsPerCategory;
+    private final SortedProductIndex<Category> topRatedProductsPerCategory;
+    private final ProductRangeIndex<LocalDate> productsPerCreatedAt;
+    private final ProductRangeIndex<LocalDate> productsPerUpdatedAt;
+    private final NamePrefixIndex productsPerName;
+
+    ProductQueryPlanner(ProductStore productStore, ProductIndex<Category> productsPerCategory,
+                        SortedProductIndex<Category> topRatedProductsPerCategory,
+                        ProductRangeIndex<LocalDate> productsPerCreatedAt,
+                        ProductRangeIndex<LocalDate> productsPerUpdatedAt,
+                        NamePrefixIndex productsPerName) {
+        this.productStore = productStore;
+        this.productsPerCategory = productsPerCategory;
+        this.topRatedProductsPerCategory = topRatedProductsPerCategory;
+        this.productsPerCreatedAt = productsPerCreatedAt;
+        this.productsPerUpdatedAt = productsPerUpdatedAt;
+        this.productsPerName = productsPerName;
+    }
+
+    QueryPlan plan(ProductQuery query) {
+        AccessPath accessPath = cheapestAccessPath(query);
+        return new QueryPlan(accessPath.index(), accessPath.estimatedProducts());
+    }
+
+    Stream<Product> products(ProductQuery query) {
+        Stream<Product> products = cheapestAccessPath(query).products().get()
+                .filter(query.predicate());
+        if (query.sortOrder().isPresent()) {
+            products = products.sorted(query.sortOrder().get());
+        }
+        return products.limit(query.limit());
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private record AccessPath(String index, long estimatedProducts, Supplier<Stream<Product>> products) {
+    }
+
+    private AccessPath cheapestAccessPath(ProductQuery query) {
+        List<AccessPath> accessPaths = new ArrayList<>();
+        accessPaths.add(new AccessPath(FULL_SCAN, productStore.size(), () -> productStore.products().stream()));
+
+        query.category().ifPresent(category -> {
+            if (query.hasRatingRange()) {
+                accessPaths.add(new AccessPath("rating per category",
+                        productsPerCategory.productsForKey(category).size(),
+                        () -> topRatedProductsPerCategory.productsForKeyBetween(category,
+                                boundaryProduct(category, query.maxRating(), LocalDate.MAX, FIRST_ID),
+                                boundaryProduct(category, query.minRating(), LocalDate.MIN, LAST_ID)).stream()));
+            } else {
+                List<Product> products = productsPerCategory.productsForKey(category);
+                accessPaths.add(new AccessPath("category", products.size(), products::stream));
+            }
+        });
+        if (query.hasCreatedRange()) {
+            accessPaths.add(rangeAccessPath("created at",
+                    productsPerCreatedAt.productsForKeysBetween(query.createdFrom(), query.createdTo())));
+        }
+        if (query.hasUpdatedRange()) {
+            accessPaths.add(rangeAccessPath("updated at",
+                    productsPerUpdatedAt.productsForKeysBetween(query.updatedFrom(), query.updatedTo())));
+        }
+
+        AccessPath cheapestAccessPath = accessPaths.stream()
+                .min(Comparator.comparingLong(AccessPath::estimatedProducts))
+                .orElseThrow();
+        if (query.namePrefix().isEmpty()) {
+            return cheapestAccessPath;
+        }
+        Collection<List<Product>> productsForNamesWithPrefix =
+                productsPerName.productsForNamesWithPrefix(query.namePrefix().get());
+        long estimatedProducts = 0;
+        for (List<Product> products : productsForNamesWithPrefix) {
+            estimatedProducts += products.size();
+            if (estimatedProducts >= cheapestAccessPath.estimatedProducts()) {
+                return cheapestAccessPath;
+            }
+        }
+        return new AccessPath("name prefix", estimatedProducts,
+                () -> productsForNamesWithPrefix.stream().flatMap(List::stream));
+    }
+
+    private static AccessPath rangeAccessPath(String index, Collection<List<Product>> productsForDates) {
+        long estimatedProducts = 0;
+        for (List<Product> products : productsForDates) {
+            estimatedProducts += products.size();
+        }
+        return new AccessPath(index, estimatedProducts,
+                () -> productsForDates.stream().flatMap(List::stream));
+    }
+
+    private static Product boundaryProduct(Category category, double rating, LocalDate createdAt, UUID id) {
+        return new Product(id, "", category, rating, createdAt, createdAt);
+    }
+}
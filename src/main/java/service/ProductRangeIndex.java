@@ -0,0 +1,68 @@
+package service;
+
+import entities.Product;
+import entities.ProductStore;
+
+import java.util.*;
+import java.util.function.Function;
+
+class ProductRangeIndex<K extends Comparable<? super K>> extends ProductIndex<K> {
+    private volatile NavigableMap<K, List<Product>> sortedView;
+
+    ProductRangeIndex(Function<Product, K> function, ProductStore productStore) {
+        super(function, productStore);
+    }
+
+    ProductRangeIndex(ProductRangeIndex<K> index, ProductStore productStore) {
+        super(index, productStore);
+    }
+
+    @Override
+    ProductRangeIndex<K> frozen(ProductStore productStore) {
+        return new ProductRangeIndex<>(this, productStore);
+    }
+
+    @Override
+    void positionsChanged() {
+        super.positionsChanged();
+        sortedView = null;
+    }
+
+    NavigableMap<K, List<Product>> sortedProductsPerKey() {
+        NavigableMap<K, List<Product>> sortedProductsPerKey = sortedView;
+        if (sortedProductsPerKey == null) {
+            sortedProductsPerKey = Collections.unmodifiableNavigableMap(productsPerKey(new TreeMap<>()));
+            sortedView = sortedProductsPerKey;
+        }
+        return sortedProductsPerKey;
+    }
+
+    List<Product> productsAfter(K key) {
+        PositionsPerKey<K> positionsPerKey = positionsPerKey();
+        return flatteningProducts(positionsPerKey.values(positionsPerKey.rank(key, true), positionsPerKey.size()));
+    }
+
+    List<Product> productsBefore(K key) {
+        PositionsPerKey<K> positionsPerKey = positionsPerKey();
+        return flatteningProducts(positionsPerKey.values(0, positionsPerKey.rank(key, false)));
+    }
+
+    List<Product> productsBetween(K fromKey, K toKey) {
+        if (fromKey.compareTo(toKey) > 0) {
+            return List.of();
+        }
+        PositionsPerKey<K> positionsPerKey = positionsPerKey();
+        return flatteningProducts(positionsPerKey.values(positionsPerKey.rank(fromKey, false),
+                positionsPerKey.rank(toKey, true)));
+    }
+
+    Collection<List<Product>> productsForKeysBetween(K fromKey, K toKey) {
+        if (fromKey != null && toKey != null && fromKey.compareTo(toKey) > 0) {
+            return List.of();
+        }
+        PositionsPerKey<K> positionsPerKey = positionsPerKey();
+        int fromRank = fromKey == null ? 0 : positionsPerKey.rank(fromKey, false);
+        int toRank = toKey == null ? positionsPerKey.size() : positionsPerKey.rank(toKey, true);
+        return products(positionsPerKey.values(fromRank, toRank));
+    }
+}
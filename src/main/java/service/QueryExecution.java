@@ -0,0 +1,52 @@
+package service;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public final class QueryExecution implements AutoCloseable {
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+    private static final QueryExecution SEQUENTIAL = new QueryExecution(null, Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    private QueryExecution(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public static QueryExecution sequential() {
+        return SEQUENTIAL;
+    }
+
+    public static QueryExecution parallel() {
+        return parallel(Runtime.getRuntime().availableProcessors(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public static QueryExecution parallel(int parallelism, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be at least 1");
+        }
+        return new QueryExecution(new ForkJoinPool(parallelism), parallelThreshold);
+    }
+
+    public boolean isParallel(int numberOfProducts) {
+        return pool != null && numberOfProducts >= parallelThreshold;
+    }
+
+    <T, R> R query(Collection<T> items, int numberOfProducts, Function<Stream<T>, R> query) {
+        if (!isParallel(numberOfProducts)) {
+            return query.apply(items.stream());
+        }
+        return pool.submit(() -> query.apply(items.parallelStream())).join();
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package service;
+
+public record QueryPlan(String index, long estimatedProducts) {
+    public boolean isFullScan() {
+        return index.equals(ProductQueryPlanner.FULL_SCAN);
+    }
+}
@@ -0,0 +1,112 @@
+package service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public final class ResultCache {
+    private static final int DEFAULT_CAPACITY = 128;
+
+    private final int capacity;
+    private final Map<List<Object>, CachedResult> results = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong accesses = new AtomicLong();
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    public ResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ResultCache(int capacity) {
+        this(capacity, new LongAdder(), new LongAdder(), new LongAdder());
+    }
+
+    private ResultCache(int capacity, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public static ResultCache disabled() {
+        return new ResultCache(0);
+    }
+
+    public record Statistics(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    public Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), results.size());
+    }
+
+    // An empty cache with the same capacity that keeps counting into this cache's hits, misses and evictions.
+    ResultCache emptyCopy() {
+        return new ResultCache(capacity, hits, misses, evictions);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class CachedResult {
+        private final long generation;
+        private final Object result;
+        private volatile long lastAccess;
+
+        private CachedResult(long generation, Object result, long lastAccess) {
+            this.generation = generation;
+            this.result = result;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(List<Object> key, Supplier<T> query) {
+        if (capacity == 0) {
+            return query.get();
+        }
+        long currentGeneration = generation.get();
+        CachedResult cachedResult = results.get(key);
+        if (cachedResult != null && cachedResult.generation == currentGeneration) {
+            cachedResult.lastAccess = accesses.incrementAndGet();
+            hits.increment();
+            return (T) cachedResult.result;
+        }
+        misses.increment();
+        T result = query.get();
+        results.merge(key, new CachedResult(currentGeneration, result, accesses.incrementAndGet()),
+                (oldResult, newResult) -> oldResult.generation > newResult.generation ? oldResult : newResult);
+        if (results.size() > capacity) {
+            evictLeastRecentlyUsed();
+        }
+        return result;
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        while (results.size() > capacity) {
+            Map.Entry<List<Object>, CachedResult> leastRecentlyUsed = null;
+            for (Map.Entry<List<Object>, CachedResult> entry : results.entrySet()) {
+                if (leastRecentlyUsed == null
+                        || entry.getValue().lastAccess < leastRecentlyUsed.getValue().lastAccess) {
+                    leastRecentlyUsed = entry;
+                }
+            }
+            if (leastRecentlyUsed != null && results.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,193 @@
+package service;
+
+import entities.Product;
+import entities.ProductOrder;
+import entities.ProductStore;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+class SortedProductIndex<K extends Comparable<? super K>> implements OrderedProductIndexing {
+    private final Function<Product, K> function;
+    private final Predicate<Product> predicate;
+    private final Comparator<Product> comparator;
+    private final ProductStore productStore;
+    private volatile PositionsPerKey<K> sortedPositionsPerKey = PositionsPerKey.empty();
+
+    SortedProductIndex(Function<Product, K> function, Predicate<Product> predicate, Comparator<Product> comparator,
+                       ProductStore productStore) {
+        this.function = function;
+        this.predicate = predicate;
+        this.comparator = comparator;
+        this.productStore = productStore;
+    }
+
+    private SortedProductIndex(SortedProductIndex<K> index, ProductStore productStore) {
+        this(index.function, index.predicate, index.comparator, productStore);
+        this.sortedPositionsPerKey = index.sortedPositionsPerKey;
+    }
+
+    SortedProductIndex<K> frozen(ProductStore productStore) {
+        return new SortedProductIndex<>(this, productStore);
+    }
+
+    @Override
+    public void addProduct(int position, Product product) {
+        if (predicate.test(product)) {
+            K key = function.apply(product);
+            PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+            sortedPositionsPerKey = sortedPositionsPerKey.with(key,
+                    positions.insert(position, entry(position, product)));
+        }
+    }
+
+    @Override
+    public void addProducts(int firstPosition, List<Product> products) {
+        SortedMap<K, IntStream.Builder> positionsPerKey = new TreeMap<>();
+        for (int index = 0; index < products.size(); index++) {
+            Product product = products.get(index);
+            if (predicate.test(product)) {
+                positionsPerKey.computeIfAbsent(function.apply(product), key -> IntStream.builder()).add(index);
+            }
+        }
+        if (!sortedPositionsPerKey.isEmpty()) {
+            PositionsPerKey<K> newSortedPositionsPerKey = sortedPositionsPerKey;
+            for (Map.Entry<K, IntStream.Builder> indexesForKey : positionsPerKey.entrySet()) {
+                PositionTree positions = newSortedPositionsPerKey.getOrEmpty(indexesForKey.getKey());
+                for (int index : indexesForKey.getValue().build().toArray()) {
+                    positions = positions.insert(firstPosition + index,
+                            entry(firstPosition + index, products.get(index)));
+                }
+                newSortedPositionsPerKey = newSortedPositionsPerKey.with(indexesForKey.getKey(), positions);
+            }
+            sortedPositionsPerKey = newSortedPositionsPerKey;
+            return;
+        }
+        Comparator<SortedPosition> sortedPositionComparator = Comparator.comparing(SortedPosition::product, comparator)
+                .thenComparingInt(SortedPosition::position);
+        SortedMap<K, PositionTree> newSortedPositionsPerKey = new TreeMap<>();
+        positionsPerKey.forEach((key, indexesForKey) -> {
+            int[] sortedPositions = indexesForKey.build()
+                    .mapToObj(index -> new SortedPosition(products.get(index), firstPosition + index))
+                    .sorted(sortedPositionComparator)
+                    .mapToInt(SortedPosition::position)
+                    .toArray();
+            newSortedPositionsPerKey.put(key, PositionTree.of(sortedPositions));
+        });
+        sortedPositionsPerKey = PositionsPerKey.of(newSortedPositionsPerKey);
+    }
+
+    @Override
+    public void addProducts(ProductOrder productOrder) {
+        if (!sortedPositionsPerKey.isEmpty()) {
+            for (int position : productOrder.positions()) {
+                addProduct(position, productStore.product(position));
+            }
+            return;
+        }
+        sortedPositionsPerKey = PositionsPerKey.of(productOrder,
+                position -> function.apply(productStore.product(position)));
+    }
+
+    @Override
+    public ProductOrder productOrder() {
+        return sortedPositionsPerKey.productOrder();
+    }
+
+    private record SortedPosition(Product product, int position) {
+    }
+
+    @Override
+    public void removeProduct(int position, Product product) {
+        if (!predicate.test(product)) {
+            return;
+        }
+        K key = function.apply(product);
+        PositionTree positions = sortedPositionsPerKey.get(key);
+        if (positions == null) {
+            return;
+        }
+        sortedPositionsPerKey = sortedPositionsPerKey.with(key, positions.remove(entry(position, product)));
+    }
+
+    private PositionTree.Probe entry(int position, Product product) {
+        return otherPosition -> {
+            int comparison = comparator.compare(product, productStore.product(otherPosition));
+            return comparison != 0 ? comparison : Integer.compare(position, otherPosition);
+        };
+    }
+
+    private PositionTree.Probe before(Product product) {
+        return otherPosition -> comparator.compare(product, productStore.product(otherPosition)) > 0 ? 1 : -1;
+    }
+
+    private PositionTree.Probe after(Product product) {
+        return otherPosition -> comparator.compare(product, productStore.product(otherPosition)) >= 0 ? 1 : -1;
+    }
+
+    List<Product> productsForKey(K key) {
+        PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+        return materializing(positions, 0, positions.size());
+    }
+
+    List<Product> productsForKey(K key, int offset, int limit) {
+        checkPage(offset, limit);
+        PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+        int fromRank = Math.min(offset, positions.size());
+        return materializing(positions, fromRank, (int) Math.min((long) fromRank + limit, positions.size()));
+    }
+
+    Optional<Product> firstProductForKey(K key) {
+        PositionTree positions = sortedPositionsPerKey.get(key);
+        return positions == null ? Optional.empty() : Optional.of(productStore.product(positions.position(0)));
+    }
+
+    List<Product> productsForKeyWhile(K key, Predicate<Product> whilePredicate) {
+        PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+        List<Product> productsWhile = new ArrayList<>();
+        for (int rank = 0; rank < positions.size(); rank++) {
+            Product product = productStore.product(positions.position(rank));
+            if (!whilePredicate.test(product)) {
+                break;
+            }
+            productsWhile.add(product);
+        }
+        return List.copyOf(productsWhile);
+    }
+
+    List<Product> productsForKeyAfter(K key, Product lastProduct, int limit) {
+        checkPage(0, limit);
+        PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+        int fromRank = positions.rank(after(lastProduct));
+        return materializing(positions, fromRank, (int) Math.min((long) fromRank + limit, positions.size()));
+    }
+
+    List<Product> productsForKeyBetween(K key, Product fromProduct, Product toProduct) {
+        PositionTree positions = sortedPositionsPerKey.getOrEmpty(key);
+        int fromRank = positions.rank(before(fromProduct));
+        int toRank = Math.max(fromRank, positions.rank(after(toProduct)));
+        return positions.view(fromRank, toRank, productStore.frozen()::product);
+    }
+
+    private List<Product> materializing(PositionTree positions, int fromRank, int toRank) {
+        Product[] materializedProducts = new Product[toRank - fromRank];
+        positions.forEach(fromRank, toRank, new IntConsumer() {
+            private int index;
+
+            @Override
+            public void accept(int position) {
+                materializedProducts[index++] = productStore.product(position);
+            }
+        });
+        return List.of(materializedProducts);
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package service;
+
+import entities.Product;
+
+import java.util.*;
+
+final class TopRatedProducts {
+    private TopRatedProducts() {
+    }
+
+    static Comparator<Product> comparingByRatingAndCreatedAt() {
+        return Comparator.comparingDouble(Product::rating).reversed()
+                .thenComparing(Comparator.comparing(Product::createdAt).reversed())
+                .thenComparing(Product::id);
+    }
+
+    static void checkNumberOfProducts(int numberOfProducts) {
+        if (numberOfProducts < 0) {
+            throw new IllegalArgumentException("numberOfProducts must not be negative");
+        }
+    }
+
+    static List<Product> mergingTopRated(Collection<List<Product>> topRatedCandidates, int numberOfProducts) {
+        checkNumberOfProducts(numberOfProducts);
+        Comparator<Product> comparator = comparingByRatingAndCreatedAt();
+        long numberOfCandidates = 0;
+        for (List<Product> candidates : topRatedCandidates) {
+            numberOfCandidates += candidates.size();
+        }
+        int capacity = (int) Math.min(numberOfProducts, numberOfCandidates) + 1;
+        PriorityQueue<Product> lowestRatedFirst = new PriorityQueue<>(capacity, comparator.reversed());
+        for (List<Product> candidates : topRatedCandidates) {
+            for (Product candidate : candidates) {
+                if (lowestRatedFirst.size() < numberOfProducts) {
+                    lowestRatedFirst.add(candidate);
+                } else if (!lowestRatedFirst.isEmpty() && comparator.compare(candidate, lowestRatedFirst.peek()) < 0) {
+                    lowestRatedFirst.poll();
+                    lowestRatedFirst.add(candidate);
+                } else {
+                    break;
+                }
+            }
+        }
+        List<Product> topRated = new ArrayList<>(lowestRatedFirst);
+        topRated.sort(comparator);
+        return Collections.unmodifiableList(topRated);
+    }
+}
@@ -1,76 +1,411 @@
 package service;
 
 import entities.InputProductData;
+import entities.ProductCatalogFile;
+import entities.ProductJournal;
 import entities.ProductList;
+import entities.ProductOrder;
+import entities.ProductSnapshotFile;
+import entities.ProductStore;
 import entities.Product;
 import entities.Category;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class Warehouse {
-    private final ProductList productList;
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+
+    private final ProductStore productStore;
+    private final IdGenerator idGenerator;
+    private final ProductJournal productJournal;
+    private final QueryExecution queryExecution;
+    private final ResultCache resultCache;
+    private final ProductEventPublisher productEvents;
+    private final WarehouseMetrics metrics;
+    private final ProductIndex<Category> productsPerCategory;
+    private final ProductRangeIndex<LocalDate> productsPerCreatedAt;
+    private final ProductRangeIndex<LocalDate> productsPerUpdatedAt;
+    private final ProductIndex<Month> productsPerCreatedAtMonth;
+    private final ProductRangeIndex<YearMonth> productsPerCreatedAtYearMonth;
+    private final ProductRangeIndex<LocalDate> productsPerCreatedAtWeek;
+    private final ProductIndex<Character> productsPerFirstLetter;
+    private final NamePrefixIndex productsPerName;
+    private final SortedProductIndex<Category> sortedProductsPerCategory;
+    private final SortedProductIndex<Category> topRatedProductsPerCategory;
+    private final SortedProductIndex<Month> topRatedProductsPerCreatedAtMonth;
+    private final CategoryCounter numberOfProductsPerCategory;
+    private final List<ProductIndexing> productIndexes;
+    private final Map<String, OrderedProductIndexing> orderedProductIndexes;
+    private final ProductQueryPlanner productQueryPlanner;
+    private volatile boolean indexed;
 
     public Warehouse() {
-        this.productList = new ProductList(List.of());
+        this((ProductStore) new ProductList(List.of()));
     }
 
     public Warehouse(ProductList productList) {
-        this.productList = new ProductList(productList.products());
+        this((ProductStore) new ProductList(productList.products()));
+    }
+
+    public Warehouse(ProductStore productStore) {
+        this(productStore, IdGenerator.secureRandom());
+    }
+
+    public Warehouse(ProductStore productStore, IdGenerator idGenerator) {
+        this(productStore, idGenerator, ProductJournal.none());
+    }
+
+    public Warehouse(ProductStore productStore, IdGenerator idGenerator, ProductJournal productJournal) {
+        this(productStore, idGenerator, productJournal, QueryExecution.sequential());
+    }
+
+    public Warehouse(ProductStore productStore, IdGenerator idGenerator, ProductJournal productJournal,
+                     QueryExecution queryExecution) {
+        this(productStore, idGenerator, productJournal, queryExecution, new ResultCache());
+    }
+
+    public Warehouse(ProductStore productStore, IdGenerator idGenerator, ProductJournal productJournal,
+                     QueryExecution queryExecution, ResultCache resultCache) {
+        this(productStore, idGenerator, productJournal, queryExecution, resultCache, new ProductEventPublisher());
+    }
+
+    public Warehouse(ProductStore productStore, IdGenerator idGenerator, ProductJournal productJournal,
+                     QueryExecution queryExecution, ResultCache resultCache, ProductEventPublisher productEvents) {
+        this(productStore, idGenerator, productJournal, queryExecution, resultCache, productEvents, true);
+    }
+
+    Warehouse(ProductStore productStore, IdGenerator idGenerator, ProductJournal productJournal,
+              QueryExecution queryExecution, ResultCache resultCache, ProductEventPublisher productEvents,
+              boolean instrumented) {
+        this.productStore = productStore;
+        this.idGenerator = idGenerator;
+        this.productJournal = productJournal;
+        this.queryExecution = queryExecution;
+        this.resultCache = resultCache;
+        this.productEvents = productEvents;
+        this.productsPerCategory = new ProductIndex<>(Product::category, productStore);
+        this.productsPerCreatedAt = new ProductRangeIndex<>(Product::createdAt, productStore);
+        this.productsPerUpdatedAt = new ProductRangeIndex<>(Product::updatedAt, productStore);
+        this.productsPerCreatedAtMonth = new ProductIndex<>(product -> product.createdAt().getMonth(), productStore);
+        this.productsPerCreatedAtYearMonth =
+                new ProductRangeIndex<>(product -> YearMonth.from(product.createdAt()), productStore);
+        this.productsPerCreatedAtWeek =
+                new ProductRangeIndex<>(product -> ProductsPerMonth.firstDayOfWeek(product.createdAt()),
+                        productStore);
+        this.productsPerFirstLetter =
+                new ProductIndex<>(SortedProducts::getCharAt, SortedProducts::productHasFirstLetter, productStore);
+        this.productsPerName = new NamePrefixIndex(productStore);
+        this.sortedProductsPerCategory = new SortedProductIndex<>(Product::category,
+                SortedProducts::productHasFirstLetter, SortedProducts.comparingByNameAndId(), productStore);
+        this.topRatedProductsPerCategory = new SortedProductIndex<>(Product::category, product -> true,
+                TopRatedProducts.comparingByRatingAndCreatedAt(), productStore);
+        this.topRatedProductsPerCreatedAtMonth = new SortedProductIndex<>(product -> product.createdAt().getMonth(),
+                product -> true, TopRatedProducts.comparingByRatingAndCreatedAt(), productStore);
+        this.numberOfProductsPerCategory = new CategoryCounter();
+        this.productIndexes = productIndexes();
+        this.orderedProductIndexes = orderedProductIndexes();
+        this.metrics = instrumented
+                ? new WarehouseMetrics(() -> indexed(numberOfProductsPerCategory))
+                : WarehouseMetrics.disabled();
+        this.productQueryPlanner = new ProductQueryPlanner(productStore, productsPerCategory,
+                topRatedProductsPerCategory, productsPerCreatedAt, productsPerUpdatedAt, productsPerName);
+    }
+
+    private Warehouse(Warehouse warehouse) {
+        this.productStore = warehouse.productStore.frozen();
+        this.idGenerator = warehouse.idGenerator;
+        this.productJournal = ProductJournal.none();
+        this.queryExecution = warehouse.queryExecution;
+        this.resultCache = ResultCache.disabled();
+        this.productEvents = ProductEventPublisher.disabled();
+        this.metrics = WarehouseMetrics.disabled();
+        this.productsPerCategory = warehouse.productsPerCategory.frozen(productStore);
+        this.productsPerCreatedAt = warehouse.productsPerCreatedAt.frozen(productStore);
+        this.productsPerUpdatedAt = warehouse.productsPerUpdatedAt.frozen(productStore);
+        this.productsPerCreatedAtMonth = warehouse.productsPerCreatedAtMonth.frozen(productStore);
+        this.productsPerCreatedAtYearMonth = warehouse.productsPerCreatedAtYearMonth.frozen(productStore);
+        this.productsPerCreatedAtWeek = warehouse.productsPerCreatedAtWeek.frozen(productStore);
+        this.productsPerFirstLetter = warehouse.productsPerFirstLetter.frozen(productStore);
+        this.productsPerName = warehouse.productsPerName.frozen(productStore);
+        this.sortedProductsPerCategory = warehouse.sortedProductsPerCategory.frozen(productStore);
+        this.topRatedProductsPerCategory = warehouse.topRatedProductsPerCategory.frozen(productStore);
+        this.topRatedProductsPerCreatedAtMonth = warehouse.topRatedProductsPerCreatedAtMonth.frozen(productStore);
+        this.numberOfProductsPerCategory = warehouse.numberOfProductsPerCategory.frozen();
+        this.productIndexes = productIndexes();
+        this.orderedProductIndexes = orderedProductIndexes();
+        this.productQueryPlanner = new ProductQueryPlanner(productStore, productsPerCategory,
+                topRatedProductsPerCategory, productsPerCreatedAt, productsPerUpdatedAt, productsPerName);
+        this.indexed = warehouse.indexed;
+    }
+
+    private List<ProductIndexing> productIndexes() {
+        return List.of(productsPerCategory, productsPerCreatedAt, productsPerUpdatedAt, productsPerCreatedAtMonth,
+                productsPerCreatedAtYearMonth, productsPerCreatedAtWeek, productsPerFirstLetter, productsPerName,
+                sortedProductsPerCategory, topRatedProductsPerCategory, topRatedProductsPerCreatedAtMonth,
+                numberOfProductsPerCategory);
+    }
+
+    private Map<String, OrderedProductIndexing> orderedProductIndexes() {
+        Map<String, OrderedProductIndexing> orderedProductIndexes = new LinkedHashMap<>();
+        orderedProductIndexes.put("productsPerCategory", productsPerCategory);
+        orderedProductIndexes.put("productsPerCreatedAt", productsPerCreatedAt);
+        orderedProductIndexes.put("productsPerUpdatedAt", productsPerUpdatedAt);
+        orderedProductIndexes.put("productsPerCreatedAtMonth", productsPerCreatedAtMonth);
+        orderedProductIndexes.put("productsPerCreatedAtYearMonth", productsPerCreatedAtYearMonth);
+        orderedProductIndexes.put("productsPerCreatedAtWeek", productsPerCreatedAtWeek);
+        orderedProductIndexes.put("productsPerFirstLetter", productsPerFirstLetter);
+        orderedProductIndexes.put("productsPerName", productsPerName);
+        orderedProductIndexes.put("sortedProductsPerCategory", sortedProductsPerCategory);
+        orderedProductIndexes.put("topRatedProductsPerCategory", topRatedProductsPerCategory);
+        orderedProductIndexes.put("topRatedProductsPerCreatedAtMonth", topRatedProductsPerCreatedAtMonth);
+        return Collections.unmodifiableMap(orderedProductIndexes);
+    }
+
+    Warehouse frozen() {
+        synchronized (productIndexes) {
+            return new Warehouse(this);
+        }
+    }
+
+    CategoryCounter numberOfProductsPerCategory() {
+        return indexed(numberOfProductsPerCategory);
+    }
+
+    private <I> I indexed(I index) {
+        if (!indexed) {
+            synchronized (productIndexes) {
+                if (!indexed) {
+                    List<Product> products = productStore.products();
+                    orderedProductIndexes.forEach((name, productIndex) -> productStore.productOrder(name)
+                            .ifPresentOrElse(productIndex::addProducts, () -> productIndex.addProducts(products)));
+                    numberOfProductsPerCategory.addProducts(productsPerCategory);
+                    indexed = true;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void indexProduct(int position, Product product) {
+        if (indexed) {
+            productIndexes.forEach(productIndex -> productIndex.addProduct(position, product));
+        }
+    }
+
+    private void indexProducts(int firstPosition, List<Product> products) {
+        if (indexed) {
+            productIndexes.forEach(productIndex -> productIndex.addProducts(firstPosition, products));
+        }
+    }
+
+    private void unindexProduct(int position, Product product) {
+        if (indexed) {
+            productIndexes.forEach(productIndex -> productIndex.removeProduct(position, product));
+        }
     }
 
     public Product createNewProduct(InputProductData inputProductData) {
+        return measured("createNewProduct", () ->
+                createNewProduct(inputProductData, idGenerator.nextId(), LocalDate.now()));
+    }
+
+    private static Product createNewProduct(InputProductData inputProductData, UUID id, LocalDate today) {
+        checkInputProductData(inputProductData);
         return new Product(
-                UUID.randomUUID(),
+                id,
                 inputProductData.name(),
                 inputProductData.category(),
                 inputProductData.rating(),
-                LocalDate.now(),
-                LocalDate.now()
+                today,
+                today
         );
     }
 
+    static void checkInputProductData(InputProductData inputProductData) {
+        if (inputProductData.name() == null || inputProductData.name().isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+        if (inputProductData.category() == null) {
+            throw new IllegalArgumentException("category must not be null");
+        }
+    }
+
     public void addNewProduct(InputProductData inputProductData) {
-        productList.addProduct(createNewProduct(inputProductData));
+        measured("addNewProduct", () -> {
+            Product newProduct = createNewProduct(inputProductData, idGenerator.nextId(), LocalDate.now());
+            productJournal.appendAddedProducts(List.of(newProduct));
+            addProduct(newProduct);
+            return newProduct;
+        });
+    }
+
+    public List<Product> addNewProducts(Collection<InputProductData> inputProducts) {
+        productStore.ensureCapacity(productStore.size() + inputProducts.size());
+        return addNewProducts(inputProducts.stream());
+    }
+
+    public List<Product> addNewProducts(Stream<InputProductData> inputProducts) {
+        return measured("addNewProducts", () -> {
+            List<Product> newProducts = createNewProducts(inputProducts);
+            productJournal.appendAddedProducts(newProducts);
+            addProducts(newProducts);
+            return newProducts;
+        });
+    }
+
+    List<Product> createNewProducts(Stream<InputProductData> inputProducts) {
+        IdGenerator batchIdGenerator = idGenerator.forBatches();
+        LocalDate today = LocalDate.now();
+        return inputProducts
+                .map(inputProductData -> createNewProduct(inputProductData, batchIdGenerator.nextId(), today))
+                .toList();
+    }
+
+    void addProduct(Product newProduct) {
+        int position = productStore.size();
+        productStore.addProduct(newProduct);
+        indexProduct(position, newProduct);
+        resultCache.invalidate();
+        productEvents.productAdded(newProduct);
+    }
+
+    void addProducts(List<Product> newProducts) {
+        int firstPosition = productStore.size();
+        newProducts.forEach(productStore::addProduct);
+        indexProducts(firstPosition, newProducts);
+        resultCache.invalidate();
+        productEvents.productsAdded(newProducts);
     }
 
     public List<Product> getProductList() {
-        return Collections.unmodifiableList(productList.products());
+        return measured("getProductList", productStore::products);
+    }
+
+    public WarehouseSnapshot snapshot() {
+        return measured("snapshot", () -> new WarehouseSnapshot(new Warehouse[]{frozen()}, queryExecution));
+    }
+
+    // Published snapshots serve every read, so the indexes are built here once instead of in each frozen copy.
+    WarehouseSnapshot publishedSnapshot() {
+        indexed(productIndexes);
+        return new WarehouseSnapshot(new Warehouse[]{frozen()}, queryExecution, resultCache.emptyCopy());
+    }
+
+    public void writeSnapshot(Path path) throws IOException {
+        indexed(this).frozen().writeProductsAndOrders(path);
+    }
+
+    public void checkpoint(Path snapshotPath) throws IOException {
+        productJournal.checkpoint(() -> writeSnapshot(snapshotPath));
+    }
+
+    void writeProductsAndOrders(Path path) throws IOException {
+        Map<String, ProductOrder> productOrders = new LinkedHashMap<>();
+        orderedProductIndexes.forEach((name, productIndex) -> productOrders.put(name, productIndex.productOrder()));
+        ProductSnapshotFile.write(path, productStore.products(), productOrders);
+    }
+
+    public long importProducts(Path path, ProductCatalogFile.Format format, boolean parallel) throws IOException {
+        try (Stream<Product> products = ProductCatalogFile.read(path, format, parallel)) {
+            return importingInBatches(products, importedProducts -> {
+                productStore.ensureCapacity(productStore.size() + importedProducts.size());
+                productJournal.appendAddedProducts(importedProducts);
+                addProducts(importedProducts);
+            });
+        }
+    }
+
+    static long importingInBatches(Stream<Product> products, Consumer<List<Product>> importBatch) {
+        List<Product> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long[] numberOfImportedProducts = new long[1];
+        products.forEachOrdered(product -> {
+            batch.add(product);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                importBatch.accept(List.copyOf(batch));
+                numberOfImportedProducts[0] += batch.size();
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            importBatch.accept(List.copyOf(batch));
+            numberOfImportedProducts[0] += batch.size();
+        }
+        return numberOfImportedProducts[0];
+    }
+
+    public void exportProducts(Path path, ProductCatalogFile.Format format) throws IOException {
+        ProductCatalogFile.write(path, format, productStore.products());
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
-    private <K, V> Map<K, List<V>> groupingProducts(Function<V, K> function, List<V> listItems) {
+    private <K, V> Map<K, List<V>> groupingProducts(Function<? super V, ? extends K> function, List<V> listItems) {
         return Collections.unmodifiableMap(
-                listItems.stream()
-                        .collect(Collectors.groupingBy(function)));
+                queryExecution.query(listItems, listItems.size(), items -> {
+                    if (items.isParallel()) {
+                        return groupingProductsConcurrently(function, listItems);
+                    }
+                    return items.collect(Collectors.groupingBy(function, Collectors.toUnmodifiableList()));
+                }));
     }
 
-    private <K, V> Map<K, Long> numberOfGroupedProducts(Function<V, K> function, List<V> listItems) {
+    private static <K, V> Map<K, List<V>> groupingProductsConcurrently(Function<? super V, ? extends K> function,
+                                                                      List<V> listItems) {
+        Map<K, List<Integer>> indexesPerKey = IntStream.range(0, listItems.size()).parallel().boxed()
+                .collect(Collectors.groupingByConcurrent(index -> function.apply(listItems.get(index))));
+        Map<K, List<V>> productsPerKey = HashMap.newHashMap(indexesPerKey.size());
+        indexesPerKey.forEach((key, indexes) -> productsPerKey.put(key, indexes.stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .mapToObj(listItems::get)
+                .toList()));
+        return productsPerKey;
+    }
+
+    private <K, V> Map<K, Long> numberOfGroupedProducts(Function<? super V, ? extends K> function, List<V> listItems) {
         return Collections.unmodifiableMap(
-                listItems.stream()
-                        .collect(Collectors.groupingBy(function, Collectors.counting())));
+                queryExecution.query(listItems, listItems.size(), items -> {
+                    if (items.isParallel()) {
+                        return items.collect(Collectors.groupingByConcurrent(function, Collectors.counting()));
+                    }
+                    return items.collect(Collectors.groupingBy(function, Collectors.counting()));
+                }));
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<UUID, List<Product>> getProductsPerId() {
-        return groupingProducts(Product::id, productList.products());
+        return cached(() -> groupingProducts(Product::id, productStore.products()),
+                "getProductsPerId");
     }
 
     public Optional<Product> getAProductForItsId(UUID id) {
-        Map<UUID, List<Product>> productsPerId = getProductsPerId();
-        return productsPerId.entrySet().stream()
-                .filter(entry -> entry.getKey().equals(id))
-                .flatMap(entry -> entry.getValue().stream())
-                .findFirst();
+        return measured("getAProductForItsId", () -> productStore.product(id));
     }
 
     public Product changeProductNameCategoryRating(UUID id, InputProductData inputProductData) {
-        Product product = getAProductForItsId(id).orElseThrow();
+        return measured("changeProductNameCategoryRating", () -> changeProduct(id, inputProductData));
+    }
 
-        return new Product(
+    private Product changeProduct(UUID id, InputProductData inputProductData) {
+        checkInputProductData(inputProductData);
+        int position = productStore.position(id);
+        if (position < 0) {
+            throw new NoSuchElementException("No value present");
+        }
+        Product product = productStore.product(position);
+
+        Product updatedProduct = new Product(
                 product.id(),
                 inputProductData.name(),
                 inputProductData.category(),
@@ -78,15 +413,51 @@ public class Warehouse {
                 product.createdAt(),
                 LocalDate.now()
         );
+        productJournal.appendChangedProduct(updatedProduct);
+        unindexProduct(position, product);
+        productStore.replaceProduct(updatedProduct);
+        indexProduct(position, updatedProduct);
+        resultCache.invalidate();
+        productEvents.productUpdated(product, updatedProduct);
+
+        return updatedProduct;
+    }
+
+    public Optional<Product> removeProduct(UUID id) {
+        return measured("removeProduct", () -> deleteProduct(id));
+    }
+
+    private Optional<Product> deleteProduct(UUID id) {
+        int position = productStore.position(id);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        Product product = productStore.product(position);
+        int lastPosition = productStore.size() - 1;
+        Product lastProduct = productStore.product(lastPosition);
+
+        productJournal.appendRemovedProduct(product);
+        unindexProduct(position, product);
+        if (position != lastPosition) {
+            unindexProduct(lastPosition, lastProduct);
+        }
+        productStore.removeProduct(id);
+        if (position != lastPosition) {
+            indexProduct(position, lastProduct);
+        }
+        resultCache.invalidate();
+        productEvents.productRemoved(product);
+
+        return Optional.of(product);
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<LocalDate, List<Product>> getProductsPerCreatedAt() {
-        return groupingProducts(Product::createdAt, productList.products());
+        return measured("getProductsPerCreatedAt", () -> indexed(productsPerCreatedAt).productsPerKey());
     }
 
     public Map<LocalDate, List<Product>> getProductsPerUpdatedAt() {
-        return groupingProducts(Product::updatedAt, productList.products());
+        return measured("getProductsPerUpdatedAt", () -> indexed(productsPerUpdatedAt).productsPerKey());
     }
 
     public record ProductDatesToCompare(LocalDate dateOne, LocalDate dateTwo) {
@@ -96,24 +467,53 @@ public class Warehouse {
     }
 
     public List<Product> getFilteredProductsByDate(LocalDate dateTwo) {
-        Map<LocalDate, List<Product>> allProductsCreatedAfter = getProductsPerCreatedAt();
-        return allProductsCreatedAfter.entrySet().stream()
-                .filter(entry -> ProductDatesToCompare.isDateAfter(entry.getKey(), dateTwo))
-                .flatMap(entry -> entry.getValue().stream())
-                .toList();
+        return cached(() -> indexed(productsPerCreatedAt).productsAfter(dateTwo),
+                "getFilteredProductsByDate", dateTwo);
+    }
+
+    public List<Product> getProductsCreatedAfter(LocalDate date) {
+        return cached(() -> indexed(productsPerCreatedAt).productsAfter(date),
+                "getProductsCreatedAfter", date);
+    }
+
+    public List<Product> getProductsCreatedBefore(LocalDate date) {
+        return cached(() -> indexed(productsPerCreatedAt).productsBefore(date),
+                "getProductsCreatedBefore", date);
+    }
+
+    public List<Product> getProductsCreatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return cached(() -> indexed(productsPerCreatedAt).productsBetween(fromDate, toDate),
+                "getProductsCreatedBetween", fromDate, toDate);
+    }
+
+    public List<Product> getProductsUpdatedAfter(LocalDate date) {
+        return cached(() -> indexed(productsPerUpdatedAt).productsAfter(date),
+                "getProductsUpdatedAfter", date);
+    }
+
+    public List<Product> getProductsUpdatedBefore(LocalDate date) {
+        return cached(() -> indexed(productsPerUpdatedAt).productsBefore(date),
+                "getProductsUpdatedBefore", date);
+    }
+
+    public List<Product> getProductsUpdatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return cached(() -> indexed(productsPerUpdatedAt).productsBetween(fromDate, toDate),
+                "getProductsUpdatedBetween", fromDate, toDate);
     }
 
     public List<Product> getAllUpdatedProducts() {
-        Map<LocalDate, List<Product>> allUpdatedProducts = getProductsPerUpdatedAt();
-        return allUpdatedProducts.entrySet().stream()
-                .flatMap(entry -> entry.getValue().stream())
-                .filter(product -> ProductDatesToCompare.isDateAfter(product.updatedAt(), product.createdAt()))
-                .toList();
+        return cached(() -> {
+            Map<LocalDate, List<Product>> allUpdatedProducts = indexed(productsPerUpdatedAt).productsPerKey();
+            return queryExecution.query(allUpdatedProducts.entrySet(), allUpdatedProducts.size(), entries -> entries
+                    .flatMap(entry -> entry.getValue().stream())
+                    .filter(product -> ProductDatesToCompare.isDateAfter(product.updatedAt(), product.createdAt()))
+                    .toList());
+        }, "getAllUpdatedProducts");
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<Category, List<Product>> getProductsPerCategory() {
-        return groupingProducts(Product::category, productList.products());
+        return measured("getProductsPerCategory", () -> indexed(productsPerCategory).productsPerKey());
     }
 
     public record SortedProducts(List<Product> product) {
@@ -134,27 +534,37 @@ public class Warehouse {
         public static Comparator<Product> comparingByNameOfProducts() {
             return Comparator.comparing(Product::name);
         }
+
+        public static Comparator<Product> comparingByNameAndId() {
+            return comparingByNameOfProducts().thenComparing(Product::id);
+        }
     }
 
     public SortedProducts getSortedProductsForACategory(Category category) {
-        List<Product> productsForACategory = getProductsPerCategory().get(category);
+        return measured("getSortedProductsForACategory", () ->
+                new SortedProducts(indexed(sortedProductsPerCategory).productsForKey(category)));
+    }
+
+    public SortedProducts getSortedProductsForACategory(Category category, int offset, int limit) {
+        return measured("getSortedProductsForACategory", () ->
+                new SortedProducts(indexed(sortedProductsPerCategory).productsForKey(category, offset, limit)));
+    }
 
-        return productsForACategory.stream()
-                .filter(SortedProducts::productHasFirstLetter)
-                .sorted(SortedProducts.comparingByNameOfProducts())
-                .collect(Collectors.collectingAndThen(
-                        Collectors.toList(), SortedProducts::new)
-                );
+    public SortedProducts getSortedProductsForACategoryAfter(Category category, Product lastProduct, int limit) {
+        return measured("getSortedProductsForACategoryAfter", () ->
+                new SortedProducts(indexed(sortedProductsPerCategory)
+                        .productsForKeyAfter(category, lastProduct, limit)));
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<Category, Long> getNumberOfProductsPerCategory() {
-        return numberOfGroupedProducts(Product::category, productList.products());
+        return cached(() -> indexed(numberOfProductsPerCategory).numberOfProductsPerCategory(),
+                "getNumberOfProductsPerCategory");
     }
 
     public long getNumberOfProductsForACategory(Category category) {
-        Map<Category, Long> numberOfProductsPerCategory = getNumberOfProductsPerCategory();
-        return numberOfProductsPerCategory.getOrDefault(category, 0L);
+        return measured("getNumberOfProductsForACategory", () ->
+                indexed(numberOfProductsPerCategory).numberOfProducts(category));
     }
 
     public record NumberOfProductsPerCategory(Category category, long numberOfProducts) {
@@ -164,30 +574,36 @@ public class Warehouse {
     }
 
     public List<Category> getAllCategoriesWithProducts() {
-        Map<Category, Long> numberOfProductsPerCategory = getNumberOfProductsPerCategory();
-
-        return numberOfProductsPerCategory.entrySet().stream()
-                .filter(NumberOfProductsPerCategory::categoryHasProducts)
-                .map(Map.Entry::getKey)
-                .toList();
+        return cached(() -> indexed(numberOfProductsPerCategory).categoriesWithProducts(),
+                "getAllCategoriesWithProducts");
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<Character, List<Product>> getProductsPerFirstLetter() {
-        return groupingProducts(SortedProducts::getCharAt,
-                productList.products().stream()
-                        .filter(SortedProducts::productHasFirstLetter)
-                        .collect(Collectors.toList()));
+        return measured("getProductsPerFirstLetter", () -> indexed(productsPerFirstLetter).productsPerKey());
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix) {
+        return getProductsWithNamePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix, int limit) {
+        return cached(() -> indexed(productsPerName).productsWithPrefix(prefix, limit),
+                "getProductsWithNamePrefix", prefix, limit);
+    }
+
+    public List<String> autocompleteProductNames(String prefix, int limit) {
+        return cached(() -> indexed(productsPerName).namesWithPrefix(prefix, limit),
+                "autocompleteProductNames", prefix, limit);
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////
     public Map<Month, List<Product>> getProductsPerCreatedAtMonth() {
-        return groupingProducts(product -> product.createdAt().getMonth(), productList.products());
+        return measured("getProductsPerCreatedAtMonth", () -> indexed(productsPerCreatedAtMonth).productsPerKey());
     }
 
     public List<Product> getProductsForAMonth(Month month) {
-        Map<Month, List<Product>> productsPerMonth = getProductsPerCreatedAtMonth();
-        return productsPerMonth.getOrDefault(month, List.of());
+        return measured("getProductsForAMonth", () -> indexed(productsPerCreatedAtMonth).productsForKey(month));
     }
 
     record ProductsPerMonth(Month month, List<Product> products) {
@@ -198,18 +614,78 @@ public class Warehouse {
         public static Comparator<Product> comparingByLocalDate() {
             return Comparator.comparing(Product::createdAt);
         }
+
+        public static LocalDate firstDayOfWeek(LocalDate date) {
+            return date.with(DayOfWeek.MONDAY);
+        }
+    }
+
+    public NavigableMap<YearMonth, List<Product>> getProductsPerCreatedAtYearMonth() {
+        return measured("getProductsPerCreatedAtYearMonth", () ->
+                indexed(productsPerCreatedAtYearMonth).sortedProductsPerKey());
+    }
+
+    public List<Product> getProductsForAYearMonth(YearMonth yearMonth) {
+        return measured("getProductsForAYearMonth", () ->
+                indexed(productsPerCreatedAtYearMonth).productsForKey(yearMonth));
+    }
+
+    public List<Product> getProductsCreatedInLastMonths(YearMonth lastMonth, int numberOfMonths) {
+        checkNumberOfBuckets(numberOfMonths);
+        if (numberOfMonths == 0) {
+            return List.of();
+        }
+        return cached(() -> indexed(productsPerCreatedAtYearMonth).productsBetween(
+                        lastMonth.minusMonths(numberOfMonths - 1L), lastMonth),
+                "getProductsCreatedInLastMonths", lastMonth, numberOfMonths);
+    }
+
+    public NavigableMap<LocalDate, List<Product>> getProductsPerCreatedAtWeek() {
+        return measured("getProductsPerCreatedAtWeek", () -> indexed(productsPerCreatedAtWeek).sortedProductsPerKey());
+    }
+
+    public List<Product> getProductsCreatedInLastWeeks(LocalDate lastDay, int numberOfWeeks) {
+        checkNumberOfBuckets(numberOfWeeks);
+        if (numberOfWeeks == 0) {
+            return List.of();
+        }
+        LocalDate lastWeek = ProductsPerMonth.firstDayOfWeek(lastDay);
+        return cached(() -> indexed(productsPerCreatedAtWeek)
+                        .productsBetween(lastWeek.minusWeeks(numberOfWeeks - 1L), lastWeek),
+                "getProductsCreatedInLastWeeks", lastWeek, numberOfWeeks);
+    }
+
+    public List<Product> getProductsCreatedInLastDays(LocalDate lastDay, int numberOfDays) {
+        checkNumberOfBuckets(numberOfDays);
+        if (numberOfDays == 0) {
+            return List.of();
+        }
+        return cached(() -> indexed(productsPerCreatedAt)
+                        .productsBetween(lastDay.minusDays(numberOfDays - 1L), lastDay),
+                "getProductsCreatedInLastDays", lastDay, numberOfDays);
+    }
+
+    private static void checkNumberOfBuckets(int numberOfBuckets) {
+        if (numberOfBuckets < 0) {
+            throw new IllegalArgumentException("number of months, weeks or days must not be negative");
+        }
     }
 
     public List<Product> getSortedProductsWithMaxRatingForThisMonthByCreatedAt(ThisMonth thisMonth) {
-        Month currentMonth = thisMonth.currentMonth();
-        List<Product> productsForAMonth = getProductsForAMonth(currentMonth);
+        return measured("getSortedProductsWithMaxRatingForThisMonthByCreatedAt", () ->
+                sortedProductsWithMaxRating(thisMonth.currentMonth()));
+    }
 
-        final double maxRating = getMaxRating(productsForAMonth);
+    private List<Product> sortedProductsWithMaxRating(Month currentMonth) {
+        Optional<Product> topRatedProduct = indexed(topRatedProductsPerCreatedAtMonth).firstProductForKey(currentMonth);
+        if (topRatedProduct.isEmpty()) {
+            return List.of();
+        }
 
-        return productsForAMonth.stream()
-                .filter(product -> ProductsPerMonth.productHasMaxRating(product, maxRating))
-                .sorted(ProductsPerMonth.comparingByLocalDate().reversed())
-                .toList();
+        final double maxRating = topRatedProduct.get().rating();
+
+        return indexed(topRatedProductsPerCreatedAtMonth).productsForKeyWhile(currentMonth,
+                product -> ProductsPerMonth.productHasMaxRating(product, maxRating));
     }
 
     public record ThisMonth(Month currentMonth) {
@@ -218,10 +694,78 @@ public class Warehouse {
         }
     }
 
-    private static double getMaxRating(List<Product> productsForAMonth) {
-        return productsForAMonth.stream()
-                .map(Product::rating)
-                .max(Double::compareTo)
-                .orElseThrow();
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> getTopRatedProducts(int numberOfProducts) {
+        TopRatedProducts.checkNumberOfProducts(numberOfProducts);
+        return cached(() -> {
+            List<List<Product>> topRatedPerCategory = new ArrayList<>();
+            for (Category category : Category.values()) {
+                topRatedPerCategory.add(indexed(topRatedProductsPerCategory)
+                        .productsForKey(category, 0, numberOfProducts));
+            }
+            return TopRatedProducts.mergingTopRated(topRatedPerCategory, numberOfProducts);
+        }, "getTopRatedProducts", numberOfProducts);
+    }
+
+    public List<Product> getTopRatedProductsForACategory(Category category, int numberOfProducts) {
+        TopRatedProducts.checkNumberOfProducts(numberOfProducts);
+        return measured("getTopRatedProductsForACategory", () ->
+                indexed(topRatedProductsPerCategory).productsForKey(category, 0, numberOfProducts));
+    }
+
+    public List<Product> getTopRatedProductsForAMonth(Month month, int numberOfProducts) {
+        TopRatedProducts.checkNumberOfProducts(numberOfProducts);
+        return measured("getTopRatedProductsForAMonth", () ->
+                indexed(topRatedProductsPerCreatedAtMonth).productsForKey(month, 0, numberOfProducts));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> findProducts(ProductQuery query) {
+        return measured("findProducts", () -> filteredProducts(query));
+    }
+
+    public <R> List<R> findProducts(ProductQuery query, Function<? super Product, ? extends R> projection) {
+        return measured("findProducts", () -> filteredProducts(query).stream().<R>map(projection).toList());
+    }
+
+    public <K> Map<K, List<Product>> findProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return measured("findProductsPer", () -> groupingProducts(key, filteredProducts(query)));
+    }
+
+    public <K> Map<K, Long> countProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return measured("countProductsPer", () -> numberOfGroupedProducts(key, filteredProducts(query)));
+    }
+
+    private List<Product> filteredProducts(ProductQuery query) {
+        return resultCache.get(List.of("findProducts", query),
+                () -> indexed(productQueryPlanner).products(query).toList());
+    }
+
+    public QueryPlan explain(ProductQuery query) {
+        return measured("explain", () -> indexed(productQueryPlanner).plan(query));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public ResultCache.Statistics getResultCacheStatistics() {
+        return resultCache.statistics();
+    }
+
+    public WarehouseMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ProductEventPublisher productEvents() {
+        return productEvents;
+    }
+
+    private <T> T cached(Supplier<T> query, String method, Object... parameters) {
+        List<Object> key = new ArrayList<>(parameters.length + 1);
+        key.add(method);
+        Collections.addAll(key, parameters);
+        return measured(method, () -> resultCache.get(key, query));
+    }
+
+    private <T> T measured(String method, Supplier<T> call) {
+        return metrics.measure(method, call);
     }
 }
@@ -0,0 +1,20 @@
+package service;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("service.WarehouseCall")
+@Label("Warehouse Call")
+@jdk.jfr.Category("Warehouse")
+@Description("A call to a public Warehouse method")
+@StackTrace(false)
+final class WarehouseCallEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Result Size")
+    long resultSize;
+}
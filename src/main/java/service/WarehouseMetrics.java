@@ -0,0 +1,142 @@
+package service;
+
+import entities.Category;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public final class WarehouseMetrics implements WarehouseMetricsMXBean {
+    private final Supplier<CategoryCounter> numberOfProductsPerCategory;
+    private final ConcurrentMap<String, MethodMetrics> metricsPerMethod = new ConcurrentHashMap<>();
+
+    WarehouseMetrics(CategoryCounter numberOfProductsPerCategory) {
+        this(() -> numberOfProductsPerCategory);
+    }
+
+    WarehouseMetrics(Supplier<CategoryCounter> numberOfProductsPerCategory) {
+        this.numberOfProductsPerCategory = numberOfProductsPerCategory;
+    }
+
+    static WarehouseMetrics disabled() {
+        return new WarehouseMetrics((Supplier<CategoryCounter>) null);
+    }
+
+    public record MethodStatistics(String method, long calls, long totalResultSize, long meanLatencyNanos,
+                                   long p50LatencyNanos, long p99LatencyNanos, long p999LatencyNanos,
+                                   long maxLatencyNanos) {
+    }
+
+    @Override
+    public long getNumberOfProducts() {
+        long numberOfProducts = 0;
+        for (long numberOfProductsForACategory : getNumberOfProductsPerCategory().values()) {
+            numberOfProducts += numberOfProductsForACategory;
+        }
+        return numberOfProducts;
+    }
+
+    @Override
+    public Map<String, Long> getNumberOfProductsPerCategory() {
+        if (numberOfProductsPerCategory == null) {
+            return Map.of();
+        }
+        CategoryCounter categoryCounter = numberOfProductsPerCategory.get();
+        Map<String, Long> numberOfProductsPerCategoryName = new LinkedHashMap<>();
+        for (Category category : Category.values()) {
+            numberOfProductsPerCategoryName.put(category.name(),
+                    categoryCounter.numberOfProducts(category));
+        }
+        return Collections.unmodifiableMap(numberOfProductsPerCategoryName);
+    }
+
+    @Override
+    public List<MethodStatistics> getMethodStatistics() {
+        return metricsPerMethod.entrySet().stream()
+                .map(entry -> entry.getValue().statistics(entry.getKey()))
+                .sorted(Comparator.comparing(MethodStatistics::method))
+                .toList();
+    }
+
+    public Optional<MethodStatistics> getMethodStatistics(String method) {
+        MethodMetrics methodMetrics = metricsPerMethod.get(method);
+        return methodMetrics == null ? Optional.empty() : Optional.of(methodMetrics.statistics(method));
+    }
+
+    @Override
+    public void reset() {
+        metricsPerMethod.values().forEach(MethodMetrics::reset);
+    }
+
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("service:type=Warehouse,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    <T> T measure(String method, Supplier<T> call) {
+        if (numberOfProductsPerCategory == null) {
+            return call.get();
+        }
+        WarehouseCallEvent event = new WarehouseCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T result = call.get();
+        long latency = System.nanoTime() - start;
+        long resultSize = resultSize(result);
+        MethodMetrics methodMetrics = metricsPerMethod.get(method);
+        if (methodMetrics == null) {
+            methodMetrics = metricsPerMethod.computeIfAbsent(method, m -> new MethodMetrics());
+        }
+        methodMetrics.record(latency, resultSize);
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.resultSize = resultSize;
+            event.commit();
+        }
+        return result;
+    }
+
+    private static long resultSize(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> collection -> collection.size();
+            case Map<?, ?> map -> map.size();
+            case Optional<?> optional -> optional.isPresent() ? 1 : 0;
+            case Warehouse.SortedProducts sortedProducts -> sortedProducts.product().size();
+            default -> 1;
+        };
+    }
+
+    private static final class MethodMetrics {
+        private final LongAdder totalResultSize = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private void record(long latency, long resultSize) {
+            latencies.record(latency);
+            totalLatency.add(latency);
+            totalResultSize.add(resultSize);
+        }
+
+        private MethodStatistics statistics(String method) {
+            long calls = latencies.totalCount();
+            return new MethodStatistics(method, calls, totalResultSize.sum(),
+                    calls == 0 ? 0 : totalLatency.sum() / calls,
+                    latencies.valueAtPercentile(50), latencies.valueAtPercentile(99),
+                    latencies.valueAtPercentile(99.9), latencies.maxValue());
+        }
+
+        private void reset() {
+            latencies.reset();
+            totalLatency.reset();
+            totalResultSize.reset();
+        }
+    }
+}
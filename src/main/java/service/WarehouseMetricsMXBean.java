@@ -0,0 +1,14 @@
+package service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface WarehouseMetricsMXBean {
+    long getNumberOfProducts();
+
+    Map<String, Long> getNumberOfProductsPerCategory();
+
+    List<WarehouseMetrics.MethodStatistics> getMethodStatistics();
+
+    void reset();
+}
@@ -0,0 +1,277 @@
+package service;
+
+import entities.Category;
+import entities.Product;
+import entities.ProductCatalogFile;
+import entities.ProductSnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Function;
+
+public final class WarehouseSnapshot {
+    private final Warehouse[] frozenStripes;
+    private final List<Product> products;
+    private final QueryExecution queryExecution;
+    private final ResultCache resultCache;
+    private volatile ConcurrentWarehouse warehouse;
+
+    WarehouseSnapshot(Warehouse[] frozenStripes, QueryExecution queryExecution) {
+        this(frozenStripes, queryExecution, ResultCache.disabled());
+    }
+
+    WarehouseSnapshot(Warehouse[] frozenStripes, QueryExecution queryExecution, ResultCache resultCache) {
+        this.frozenStripes = frozenStripes;
+        this.products = new StripedProducts(frozenStripes);
+        this.queryExecution = queryExecution;
+        this.resultCache = resultCache;
+    }
+
+    private ConcurrentWarehouse warehouse() {
+        ConcurrentWarehouse frozenWarehouse = warehouse;
+        if (frozenWarehouse == null) {
+            synchronized (this) {
+                frozenWarehouse = warehouse;
+                if (frozenWarehouse == null) {
+                    frozenWarehouse = new ConcurrentWarehouse(frozenStripes, queryExecution, resultCache);
+                    warehouse = frozenWarehouse;
+                }
+            }
+        }
+        return frozenWarehouse;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public List<Product> getProductList() {
+        return products;
+    }
+
+    public void writeSnapshot(Path path) throws IOException {
+        if (frozenStripes.length == 1) {
+            frozenStripes[0].writeSnapshot(path);
+        } else {
+            ProductSnapshotFile.write(path, products);
+        }
+    }
+
+    public void exportProducts(Path path, ProductCatalogFile.Format format) throws IOException {
+        ProductCatalogFile.write(path, format, products);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<UUID, List<Product>> getProductsPerId() {
+        return warehouse().getProductsPerId();
+    }
+
+    public Optional<Product> getAProductForItsId(UUID id) {
+        return warehouse().getAProductForItsId(id);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<LocalDate, List<Product>> getProductsPerCreatedAt() {
+        return warehouse().getProductsPerCreatedAt();
+    }
+
+    public Map<LocalDate, List<Product>> getProductsPerUpdatedAt() {
+        return warehouse().getProductsPerUpdatedAt();
+    }
+
+    public List<Product> getFilteredProductsByDate(LocalDate dateTwo) {
+        return warehouse().getFilteredProductsByDate(dateTwo);
+    }
+
+    public List<Product> getProductsCreatedAfter(LocalDate date) {
+        return warehouse().getProductsCreatedAfter(date);
+    }
+
+    public List<Product> getProductsCreatedBefore(LocalDate date) {
+        return warehouse().getProductsCreatedBefore(date);
+    }
+
+    public List<Product> getProductsCreatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return warehouse().getProductsCreatedBetween(fromDate, toDate);
+    }
+
+    public List<Product> getProductsUpdatedAfter(LocalDate date) {
+        return warehouse().getProductsUpdatedAfter(date);
+    }
+
+    public List<Product> getProductsUpdatedBefore(LocalDate date) {
+        return warehouse().getProductsUpdatedBefore(date);
+    }
+
+    public List<Product> getProductsUpdatedBetween(LocalDate fromDate, LocalDate toDate) {
+        return warehouse().getProductsUpdatedBetween(fromDate, toDate);
+    }
+
+    public List<Product> getAllUpdatedProducts() {
+        return warehouse().getAllUpdatedProducts();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Category, List<Product>> getProductsPerCategory() {
+        return warehouse().getProductsPerCategory();
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategory(Category category) {
+        return warehouse().getSortedProductsForACategory(category);
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategory(Category category, int offset, int limit) {
+        return warehouse().getSortedProductsForACategory(category, offset, limit);
+    }
+
+    public Warehouse.SortedProducts getSortedProductsForACategoryAfter(Category category, Product lastProduct,
+                                                                       int limit) {
+        return warehouse().getSortedProductsForACategoryAfter(category, lastProduct, limit);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Category, Long> getNumberOfProductsPerCategory() {
+        return warehouse().getNumberOfProductsPerCategory();
+    }
+
+    public long getNumberOfProductsForACategory(Category category) {
+        return warehouse().getNumberOfProductsForACategory(category);
+    }
+
+    public List<Category> getAllCategoriesWithProducts() {
+        return warehouse().getAllCategoriesWithProducts();
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Character, List<Product>> getProductsPerFirstLetter() {
+        return warehouse().getProductsPerFirstLetter();
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix) {
+        return warehouse().getProductsWithNamePrefix(prefix);
+    }
+
+    public List<Product> getProductsWithNamePrefix(String prefix, int limit) {
+        return warehouse().getProductsWithNamePrefix(prefix, limit);
+    }
+
+    public List<String> autocompleteProductNames(String prefix, int limit) {
+        return warehouse().autocompleteProductNames(prefix, limit);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<Month, List<Product>> getProductsPerCreatedAtMonth() {
+        return warehouse().getProductsPerCreatedAtMonth();
+    }
+
+    public List<Product> getProductsForAMonth(Month month) {
+        return warehouse().getProductsForAMonth(month);
+    }
+
+    public NavigableMap<YearMonth, List<Product>> getProductsPerCreatedAtYearMonth() {
+        return warehouse().getProductsPerCreatedAtYearMonth();
+    }
+
+    public List<Product> getProductsForAYearMonth(YearMonth yearMonth) {
+        return warehouse().getProductsForAYearMonth(yearMonth);
+    }
+
+    public List<Product> getProductsCreatedInLastMonths(YearMonth lastMonth, int numberOfMonths) {
+        return warehouse().getProductsCreatedInLastMonths(lastMonth, numberOfMonths);
+    }
+
+    public NavigableMap<LocalDate, List<Product>> getProductsPerCreatedAtWeek() {
+        return warehouse().getProductsPerCreatedAtWeek();
+    }
+
+    public List<Product> getProductsCreatedInLastWeeks(LocalDate lastDay, int numberOfWeeks) {
+        return warehouse().getProductsCreatedInLastWeeks(lastDay, numberOfWeeks);
+    }
+
+    public List<Product> getProductsCreatedInLastDays(LocalDate lastDay, int numberOfDays) {
+        return warehouse().getProductsCreatedInLastDays(lastDay, numberOfDays);
+    }
+
+    public List<Product> getSortedProductsWithMaxRatingForThisMonthByCreatedAt(Warehouse.ThisMonth thisMonth) {
+        return warehouse().getSortedProductsWithMaxRatingForThisMonthByCreatedAt(thisMonth);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> getTopRatedProducts(int numberOfProducts) {
+        return warehouse().getTopRatedProducts(numberOfProducts);
+    }
+
+    public List<Product> getTopRatedProductsForACategory(Category category, int numberOfProducts) {
+        return warehouse().getTopRatedProductsForACategory(category, numberOfProducts);
+    }
+
+    public List<Product> getTopRatedProductsForAMonth(Month month, int numberOfProducts) {
+        return warehouse().getTopRatedProductsForAMonth(month, numberOfProducts);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Product> findProducts(ProductQuery query) {
+        return warehouse().findProducts(query);
+    }
+
+    public <R> List<R> findProducts(ProductQuery query, Function<? super Product, ? extends R> projection) {
+        return warehouse().findProducts(query, projection);
+    }
+
+    public <K> Map<K, List<Product>> findProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return warehouse().findProductsPer(query, key);
+    }
+
+    public <K> Map<K, Long> countProductsPer(ProductQuery query, Function<? super Product, ? extends K> key) {
+        return warehouse().countProductsPer(query, key);
+    }
+
+    public QueryPlan explain(ProductQuery query) {
+        return warehouse().explain(query);
+    }
+
+    ResultCache.Statistics getResultCacheStatistics() {
+        return resultCache.statistics();
+    }
+
+    private static final class StripedProducts extends AbstractList<Product> implements RandomAccess {
+        private final List<List<Product>> productsPerStripe;
+        private final int[] offsets;
+        private final int size;
+
+        private StripedProducts(Warehouse[] frozenStripes) {
+            this.productsPerStripe = new ArrayList<>(frozenStripes.length);
+            this.offsets = new int[frozenStripes.length];
+            int offset = 0;
+            for (int stripe = 0; stripe < frozenStripes.length; stripe++) {
+                List<Product> products = frozenStripes[stripe].getProductList();
+                productsPerStripe.add(products);
+                offsets[stripe] = offset;
+                offset += products.size();
+            }
+            this.size = offset;
+        }
+
+        @Override
+        public Product get(int index) {
+            Objects.checkIndex(index, size);
+            int stripe = Arrays.binarySearch(offsets, index);
+            if (stripe < 0) {
+                stripe = -stripe - 2;
+            }
+            while (productsPerStripe.get(stripe).isEmpty()) {
+                stripe++;
+            }
+            return productsPerStripe.get(stripe).get(index - offsets[stripe]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
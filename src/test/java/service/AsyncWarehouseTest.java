@@ -0,0 +1,139 @@
+package service;
+
+import entities.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static entities.Category.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class AsyncWarehouseTest {
+
+    @ParameterizedTest(name = "{index} - {0} concurrent clients with a queue of {1} & batches of {2}")
+    @MethodSource("clientsProvider")
+    void testConcurrentClients(int numberOfClients, int queueCapacity, int batchSize)
+            throws InterruptedException, ExecutionException {
+
+        AsyncWarehouse warehouse = new AsyncWarehouse(new Warehouse(), queueCapacity, batchSize);
+        List<CompletableFuture<Product>> changedProducts = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CompletableFuture<Product>>> futures = IntStream.range(0, numberOfClients)
+                    .mapToObj(client -> clients.submit(() -> warehouse
+                            .addNewProduct(new InputProductData("Client " + client, GALLICA, client % 10))
+                            .thenCompose(product -> warehouse.getAProductForItsId(product.id()))
+                            .thenCompose(product -> warehouse.changeProductNameCategoryRating(
+                                    product.orElseThrow().id(),
+                                    new InputProductData(product.get().name() + " changed", RAMBLER, 5.0)))))
+                    .toList();
+            for (Future<CompletableFuture<Product>> future : futures) {
+                changedProducts.add(future.get());
+            }
+        }
+
+        CompletableFuture.allOf(changedProducts.toArray(CompletableFuture[]::new)).get();
+        List<Product> productsResult = warehouse.getProductList().get();
+
+        assertThat(productsResult).hasSize(numberOfClients);
+        assertThat(productsResult).extracting("name").allMatch(name -> ((String) name).endsWith(" changed"));
+        assertThat(warehouse.getNumberOfProductsForACategory(RAMBLER).get()).isEqualTo(numberOfClients);
+        assertThat(warehouse.getProductsPerCategory().get()).containsOnlyKeys(RAMBLER);
+        assertThat(warehouse.getProductsPerId().get()).hasSize(numberOfClients);
+        assertThat(warehouse.getProductsPerCategory().get()).containsOnlyKeys(RAMBLER);
+        assertThat(warehouse.getResultCacheStatistics().hits()).isPositive();
+        assertThat(warehouse.getMetrics().getMethodStatistics("getProductsPerCategory")).isPresent();
+
+        Product removedProduct = productsResult.getFirst();
+        assertThat(warehouse.removeProduct(removedProduct.id()).get()).contains(removedProduct);
+        assertThat(warehouse.getAProductForItsId(removedProduct.id()).get()).isEmpty();
+        assertThat(warehouse.getNumberOfProductsForACategory(RAMBLER).get()).isEqualTo(numberOfClients - 1);
+
+        warehouse.close();
+
+        assertThat(warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0)))
+                .failsWithin(1, TimeUnit.SECONDS);
+        assertThat(warehouse.getTopRatedProducts(1)).failsWithin(1, TimeUnit.SECONDS);
+    }
+
+    @ParameterizedTest(name = "{index} - Failed writes of {0} clients only fail their own futures")
+    @MethodSource("clientsProvider")
+    void testFailedWrite(int numberOfClients, int queueCapacity, int batchSize)
+            throws InterruptedException, ExecutionException {
+
+        try (AsyncWarehouse warehouse = new AsyncWarehouse(new Warehouse(), queueCapacity, batchSize)) {
+            List<CompletableFuture<Product>> addedProducts = new ArrayList<>();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<CompletableFuture<Product>>> futures = IntStream.range(0, numberOfClients)
+                        .mapToObj(client -> clients.submit(() -> client % 10 == 0
+                                ? warehouse.changeProductNameCategoryRating(UUID.randomUUID(),
+                                        new InputProductData("Tuscany", GALLICA, 5.0))
+                                : warehouse.addNewProduct(new InputProductData(
+                                        client % 10 == 5 ? "" : "Client " + client, GALLICA, 10.0))))
+                        .toList();
+                for (Future<CompletableFuture<Product>> future : futures) {
+                    addedProducts.add(future.get());
+                }
+            }
+
+            for (int client = 0; client < numberOfClients; client++) {
+                CompletableFuture<Product> addedProduct = addedProducts.get(client);
+                switch (client % 10) {
+                    case 0 -> assertThatThrownBy(addedProduct::join)
+                            .hasCauseInstanceOf(NoSuchElementException.class);
+                    case 5 -> assertThatThrownBy(addedProduct::join)
+                            .hasCauseInstanceOf(IllegalArgumentException.class);
+                    default -> assertThat(addedProduct.join().name()).isEqualTo("Client " + client);
+                }
+            }
+            assertThat(warehouse.getProductList().join()).hasSize(numberOfClients * 8 / 10);
+        }
+    }
+
+    @ParameterizedTest(name = "{index} - A dead writer fails queued writes & rejects new ones")
+    @MethodSource("clientsProvider")
+    void testWriterFailure(int numberOfClients, int queueCapacity, int batchSize) {
+
+        Warehouse failingWarehouse = new Warehouse() {
+            @Override
+            public Product changeProductNameCategoryRating(UUID id, InputProductData inputProductData) {
+                throw new AssertionError("indexes out of sync");
+            }
+        };
+        AsyncWarehouse warehouse = new AsyncWarehouse(failingWarehouse, queueCapacity, batchSize);
+        List<CompletableFuture<Product>> addedProducts = new ArrayList<>();
+        CompletableFuture<Product> failedChange = null;
+        for (int client = 0; client < numberOfClients; client++) {
+            if (client == numberOfClients / 2) {
+                failedChange = warehouse.changeProductNameCategoryRating(UUID.randomUUID(),
+                        new InputProductData("Tuscany", GALLICA, 5.0));
+            }
+            addedProducts.add(warehouse.addNewProduct(new InputProductData("Client " + client, GALLICA, 10.0)));
+        }
+
+        assertThatThrownBy(failedChange::join).hasCauseInstanceOf(AssertionError.class);
+        assertThat(CompletableFuture.allOf(addedProducts.toArray(CompletableFuture[]::new)))
+                .failsWithin(5, TimeUnit.SECONDS);
+        assertThat(addedProducts.getLast()).isCompletedExceptionally();
+        assertThat(warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0)))
+                .failsWithin(1, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+        warehouse.close();
+    }
+
+    static Stream<Arguments> clientsProvider() {
+        return Stream.of(
+                arguments(10_000, 16, 1),
+                arguments(10_000, 64, 256),
+                arguments(20_000, 4096, 256)
+        );
+    }
+}
@@ -0,0 +1,119 @@
+package service;
+
+import entities.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static entities.Category.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class ConcurrentWarehouseTest {
+
+    @ParameterizedTest(name = "{index} - No lost adds or changes with {0} threads & {1} stripes")
+    @MethodSource("contentionProvider")
+    void testConcurrentAddAndChangeProducts(int numberOfThreads, int numberOfStripes, int productsPerThread)
+            throws InterruptedException, ExecutionException {
+
+        ConcurrentWarehouse warehouse = new ConcurrentWarehouse(numberOfStripes);
+        Category[] categories = Category.values();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            String threadName = "Thread " + thread;
+            Category category = categories[thread % categories.length];
+            tasks.add(() -> {
+                start.await();
+                for (int product = 0; product < productsPerThread; product++) {
+                    warehouse.addNewProduct(new InputProductData(threadName, category, product));
+                    if (product % 100 == 0) {
+                        assertThat(warehouse.getNumberOfProductsForACategory(category)).isGreaterThan(0);
+                    }
+                }
+                for (Product product : warehouse.getProductList()) {
+                    if (product.name().equals(threadName)) {
+                        warehouse.changeProductNameCategoryRating(product.id(),
+                                new InputProductData(threadName + " changed", RAMBLER, product.rating()));
+                    }
+                }
+                return null;
+            });
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads)) {
+            List<Future<Void>> futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+
+        List<Product> productsResult = warehouse.getProductList();
+
+        assertThat(productsResult).hasSize(numberOfThreads * productsPerThread);
+        assertThat(productsResult).extracting("name").allMatch(name -> ((String) name).endsWith(" changed"));
+        assertThat(productsResult).extracting("category").containsOnly(RAMBLER);
+        assertThat(warehouse.getNumberOfProductsForACategory(RAMBLER)).isEqualTo(numberOfThreads * productsPerThread);
+        assertThat(warehouse.getProductsPerId()).hasSize(numberOfThreads * productsPerThread);
+        assertThat(warehouse.getAllCategoriesWithProducts()).containsExactly(RAMBLER);
+        productsResult.forEach(product ->
+                assertThat(warehouse.getAProductForItsId(product.id())).contains(product));
+    }
+
+    @ParameterizedTest(name = "{index} - Consistent snapshots while {0} threads write to {1} stripes")
+    @MethodSource("contentionProvider")
+    void testSnapshotsDuringConcurrentWrites(int numberOfThreads, int numberOfStripes, int productsPerThread)
+            throws InterruptedException, ExecutionException {
+
+        ConcurrentWarehouse warehouse = new ConcurrentWarehouse(numberOfStripes);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            String threadName = "Thread " + thread;
+            tasks.add(() -> {
+                start.await();
+                for (int product = 0; product < productsPerThread; product++) {
+                    warehouse.addNewProducts(List.of(new InputProductData(threadName, GALLICA, product),
+                            new InputProductData(threadName, RAMBLER, product)));
+                }
+                return null;
+            });
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads)) {
+            List<Future<Void>> futures = tasks.stream().map(executor::submit).toList();
+            start.countDown();
+            for (int snapshots = 0; snapshots < 5; snapshots++) {
+                WarehouseSnapshot snapshot = warehouse.snapshot();
+                List<Product> products = List.copyOf(snapshot.getProductList());
+
+                assertThat(snapshot.getNumberOfProductsPerCategory().values().stream().mapToLong(Long::longValue)
+                        .sum()).isEqualTo(products.size());
+                assertThat(snapshot.getProductList()).containsExactlyElementsOf(products);
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+
+        WarehouseSnapshot snapshot = warehouse.snapshot();
+
+        assertThat(snapshot.getProductList()).containsExactlyElementsOf(warehouse.getProductList());
+        assertThat(snapshot.getNumberOfProductsForACategory(GALLICA)).isEqualTo(numberOfThreads * productsPerThread);
+    }
+
+    static Stream<Arguments> contentionProvider() {
+        return Stream.of(
+                arguments(8, 1, 2_000),
+                arguments(8, 16, 2_000),
+                arguments(32, 64, 500)
+        );
+    }
+}
@@ -5,18 +5,39 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.aggregator.ArgumentsAccessor;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static entities.Category.*;
 import static java.time.Month.SEPTEMBER;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 class WarehouseTest {
@@ -42,6 +63,31 @@ class WarehouseTest {
         assertThat(newProduct.updatedAt()).isNotNull();
     }
 
+    @ParameterizedTest(name = "Create new products with a pluggable id generator")
+    @MethodSource("inputProductDataProvider")
+    void testCreateNewProductWithIdGenerator(ArgumentsAccessor arguments) {
+
+        InputProductData inputProductData = new InputProductData(
+                arguments.getString(0),
+                arguments.get(1, Category.class),
+                arguments.getDouble(2)
+        );
+        UUID fixedId = UUID.fromString("bc108fc2-6785-40c4-9392-b0e93358b26e");
+
+        Warehouse fixedIdWarehouse = new Warehouse(new ProductList(List.of()), () -> fixedId);
+        Warehouse timeOrderedWarehouse = new Warehouse(new ProductList(List.of()), IdGenerator.timeOrdered());
+        List<Product> timeOrderedProducts = timeOrderedWarehouse.addNewProducts(
+                Collections.nCopies(1_000, inputProductData));
+
+        assertThat(fixedIdWarehouse.createNewProduct(inputProductData).id()).isEqualTo(fixedId);
+        assertThat(timeOrderedProducts).extracting(product -> product.id().version()).containsOnly(7);
+        assertThat(timeOrderedProducts).extracting(product -> product.id().variant()).containsOnly(2);
+        assertThat(timeOrderedProducts).extracting(Product::id).doesNotHaveDuplicates().isSorted();
+        assertThat(IdGenerator.secureRandom().nextId().version()).isEqualTo(4);
+        assertThat(IdGenerator.threadLocalRandom().nextId().version()).isEqualTo(4);
+        assertThat(IdGenerator.secureRandom().forBatches().nextId().version()).isEqualTo(4);
+    }
+
     @ParameterizedTest(name = "Add new ProductRecord to ProductList from input arguments")
     @MethodSource("inputProductDataProvider")
     void testAddAndGetNewProduct(ArgumentsAccessor arguments) {
@@ -67,6 +113,857 @@ class WarehouseTest {
         assertThat(returnedProductRecord.getFirst().updatedAt()).isEqualTo(createdProductRecord.updatedAt());
     }
 
+    @ParameterizedTest(name = "Columnar product store keeps products & ids")
+    @MethodSource("productListProvider")
+    void testColumnarProductList(List<Product> productListRecord,
+                                 Map<UUID, List<Product>> groupedByIdProviderExpected,
+                                 Map<String, List<Product>> groupedByNameProviderExpected,
+                                 Map<Category, List<Product>> groupedByCategoryProviderExpected) {
+
+        Warehouse warehouse = new Warehouse(new ColumnarProductList(productListRecord));
+        UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+        List<Product> productsBeforeChange = warehouse.getProductList();
+
+        warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 9.0));
+        Product changedProduct = warehouse.changeProductNameCategoryRating(productId,
+                new InputProductData("Aimable Amie", GALLICA, 10.0));
+
+        assertThat(productsBeforeChange).containsExactlyElementsOf(productListRecord);
+        assertThat(warehouse.getProductList()).hasSize(9).contains(changedProduct);
+        assertThat(warehouse.getProductList().getLast().name()).isEqualTo("Hippolyte");
+        assertThat(warehouse.getAProductForItsId(productId)).contains(changedProduct);
+        assertThat(warehouse.getAProductForItsId(UUID.randomUUID())).isEmpty();
+        assertThat(warehouse.getProductsPerCategory().get(RAMBLER))
+                .containsExactlyInAnyOrderElementsOf(groupedByCategoryProviderExpected.get(RAMBLER));
+        assertThat(warehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(4);
+    }
+
+    @ParameterizedTest(name = "Columnar product store answers like a product list over {0} products")
+    @ValueSource(ints = {3_000})
+    void testColumnarProductListAcrossChunks(int numberOfProducts) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(List.of()), IdGenerator.threadLocalRandom());
+        List<Product> addedProducts = warehouse.addNewProducts(IntStream.range(0, numberOfProducts)
+                .mapToObj(index -> new InputProductData("Rosa " + index, index % 3 == 0 ? MOSS : GALLICA, index % 10))
+                .toList());
+        ColumnarProductList columnarProductList = new ColumnarProductList(warehouse.getProductList());
+        Warehouse columnarWarehouse = new Warehouse(columnarProductList);
+        List<Product> productsBeforeChanges = columnarWarehouse.getProductList();
+        for (int index = 0; index < numberOfProducts; index += 7) {
+            InputProductData changedProduct = new InputProductData("Rosa changed " + index, MOSS, 10.0);
+            warehouse.changeProductNameCategoryRating(addedProducts.get(index).id(), changedProduct);
+            columnarWarehouse.changeProductNameCategoryRating(addedProducts.get(index).id(), changedProduct);
+        }
+
+        assertThat(productsBeforeChanges).containsExactlyElementsOf(addedProducts);
+        assertThat(columnarProductList.numberOfDistinctNames()).isEqualTo(numberOfProducts);
+        assertThat(columnarWarehouse.getProductList()).containsExactlyElementsOf(warehouse.getProductList());
+        assertThat(columnarWarehouse.getSortedProductsForACategory(MOSS, 500, 100))
+                .isEqualTo(warehouse.getSortedProductsForACategory(MOSS, 500, 100));
+        assertThat(columnarWarehouse.getTopRatedProductsForACategory(MOSS, 50))
+                .isEqualTo(warehouse.getTopRatedProductsForACategory(MOSS, 50));
+        assertThat(columnarWarehouse.getProductsPerCategory().get(GALLICA))
+                .containsExactlyElementsOf(warehouse.getProductsPerCategory().get(GALLICA));
+
+        ColumnarProductList addedProductList = new ColumnarProductList();
+        addedProducts.forEach(addedProductList::addProduct);
+
+        assertThat(addedProductList.products()).containsExactlyElementsOf(addedProducts);
+    }
+
+    @ParameterizedTest(name = "Product list keeps earlier generations of {0} products")
+    @ValueSource(ints = {5_000})
+    void testProductListAcrossChunks(int numberOfProducts) {
+
+        List<Product> products = IntStream.range(0, numberOfProducts)
+                .mapToObj(index -> new Product(UUID.randomUUID(), "Rosa " + index, MOSS, index % 10,
+                        LocalDate.now(), LocalDate.now()))
+                .toList();
+        ProductList productList = new ProductList(products.subList(0, numberOfProducts / 2));
+        products.subList(numberOfProducts / 2, numberOfProducts).forEach(productList::addProduct);
+        List<Product> productsBeforeChanges = productList.products();
+        List<Product> changedProducts = new ArrayList<>(products);
+        for (int index = 0; index < numberOfProducts; index += 3) {
+            Product changedProduct = new Product(products.get(index).id(), "Rosa changed " + index, GALLICA, 10.0,
+                    LocalDate.now(), LocalDate.now());
+            assertThat(productList.replaceProduct(changedProduct)).contains(products.get(index));
+            changedProducts.set(index, changedProduct);
+        }
+
+        assertThat(productsBeforeChanges).containsExactlyElementsOf(products);
+        assertThat(productList.products()).containsExactlyElementsOf(changedProducts);
+        assertThat(IntStream.range(0, numberOfProducts).map(index -> productList.position(products.get(index).id())))
+                .containsExactlyElementsOf(IntStream.range(0, numberOfProducts).boxed().toList());
+        assertThat(productList.product(UUID.randomUUID())).isEmpty();
+        assertThat(productList.replaceProduct(new Product(UUID.randomUUID(), "Rosa", MOSS, 1.0, LocalDate.now(),
+                LocalDate.now()))).isEmpty();
+    }
+
+    @ParameterizedTest(name = "Off-heap product store keeps products & ids")
+    @MethodSource("productListProvider")
+    void testOffHeapProductList(List<Product> productListRecord) {
+
+        try (OffHeapProductList offHeapProductList = new OffHeapProductList(productListRecord)) {
+            Warehouse warehouse = new Warehouse(offHeapProductList);
+            UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+            List<Product> productsBeforeChange = warehouse.getProductList();
+
+            warehouse.addNewProduct(new InputProductData("Ölandsros", MOSS, 5.0));
+            Product changedProduct = warehouse.changeProductNameCategoryRating(productId,
+                    new InputProductData("Aimable Amie", GALLICA, 10.0));
+
+            assertThat(productsBeforeChange).containsExactlyElementsOf(productListRecord);
+            assertThat(warehouse.getProductList()).hasSize(9).contains(changedProduct);
+            assertThat(warehouse.getProductList().getLast().name()).isEqualTo("Ölandsros");
+            assertThat(warehouse.getAProductForItsId(productId)).contains(changedProduct);
+            assertThat(warehouse.getAProductForItsId(UUID.randomUUID())).isEmpty();
+            assertThat(warehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(3);
+            assertThat(offHeapProductList.numberOfBytes()).isPositive();
+        }
+
+        try (OffHeapProductList addedProductList = new OffHeapProductList()) {
+            List<Product> addedProducts = Stream.generate(() -> productListRecord).limit(300)
+                    .flatMap(List::stream)
+                    .toList();
+            addedProducts.forEach(addedProductList::addProduct);
+
+            assertThat(addedProductList.products()).containsExactlyElementsOf(addedProducts);
+        }
+    }
+
+    @ParameterizedTest(name = "Off-heap product store reclaims the rows of {0} replaced products")
+    @ValueSource(ints = {100_000})
+    void testOffHeapProductListReclaimsRows(int numberOfChanges) throws InterruptedException {
+
+        Product product = new Product(UUID.randomUUID(), "Rosa 0", MOSS, 0, LocalDate.now(), LocalDate.now());
+        try (OffHeapProductList offHeapProductList = new OffHeapProductList(List.of(product))) {
+            long numberOfBytes = offHeapProductList.numberOfBytes();
+            List<Product> productsBeforeChanges = offHeapProductList.products();
+            List<Product> tornProducts = new ArrayList<>();
+            Thread reader = Thread.ofVirtual().start(() -> {
+                for (int read = 0; read < numberOfChanges; read++) {
+                    Product readProduct = offHeapProductList.product(0);
+                    if (!readProduct.name().equals("Rosa " + (int) readProduct.rating())) {
+                        tornProducts.add(readProduct);
+                    }
+                }
+            });
+
+            for (int change = 0; change < numberOfChanges; change++) {
+                offHeapProductList.replaceProduct(new Product(product.id(), "Rosa " + change % 10, GALLICA,
+                        change % 10, product.createdAt(), LocalDate.now()));
+            }
+            reader.join();
+
+            assertThat(tornProducts).isEmpty();
+            assertThat(productsBeforeChanges).containsExactly(product);
+            assertThat(offHeapProductList.product(0).name()).isEqualTo("Rosa " + (numberOfChanges - 1) % 10);
+            assertThat(offHeapProductList.numberOfBytes()).isEqualTo(numberOfBytes);
+        }
+    }
+
+    @ParameterizedTest(name = "Add new products in bulk")
+    @MethodSource("productListProvider")
+    void testAddNewProducts(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+        List<InputProductData> inputProducts = List.of(
+                new InputProductData("Albertine", RAMBLER, 8.0),
+                new InputProductData("Belle De Crécy", GALLICA, 9.5),
+                new InputProductData("Blanc Double De Coubert", RUGOSA, 7.0));
+        long numberOfRamblersBefore = warehouse.getNumberOfProductsForACategory(RAMBLER);
+
+        List<Product> newProductsResult = warehouse.addNewProducts(inputProducts);
+        List<Product> streamedProductsResult = warehouse.addNewProducts(inputProducts.stream().limit(1));
+
+        assertThat(newProductsResult).hasSize(3)
+                .extracting("name").containsExactly("Albertine", "Belle De Crécy", "Blanc Double De Coubert");
+        assertThat(newProductsResult).extracting("createdAt").containsOnly(LocalDate.now());
+        assertThat(newProductsResult).extracting(product -> product.id().version()).containsOnly(4);
+        assertThat(warehouse.getProductList()).hasSize(12).containsAll(newProductsResult)
+                .containsAll(streamedProductsResult);
+        assertThat(warehouse.getProductsPerId()).hasSize(12);
+        assertThat(warehouse.getNumberOfProductsForACategory(RAMBLER)).isEqualTo(numberOfRamblersBefore + 2)
+                .isEqualTo(5);
+        assertThat(warehouse.getSortedProductsForACategory(RAMBLER, 0, 2).product())
+                .extracting("name").containsExactly("Albertine", "Albertine");
+
+        Warehouse reindexedWarehouse = new Warehouse(new ProductList(warehouse.getProductList()));
+        assertThat(warehouse.getSortedProductsForACategory(RAMBLER))
+                .isEqualTo(reindexedWarehouse.getSortedProductsForACategory(RAMBLER));
+        assertThat(warehouse.getTopRatedProducts(4)).isEqualTo(reindexedWarehouse.getTopRatedProducts(4));
+        assertThat(warehouse.getProductsPerCreatedAt()).isEqualTo(reindexedWarehouse.getProductsPerCreatedAt());
+        assertThat(warehouse.getProductsWithNamePrefix("b"))
+                .isEqualTo(reindexedWarehouse.getProductsWithNamePrefix("b"));
+    }
+
+    @ParameterizedTest(name = "Write & map a binary product snapshot")
+    @MethodSource("productListProvider")
+    void testWriteAndOpenSnapshot(List<Product> productListRecord) throws IOException {
+
+        Path snapshotPath = Files.createTempFile("warehouse", ".snapshot");
+        try {
+            Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+            warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 9.0));
+            warehouse.writeSnapshot(snapshotPath);
+
+            try (MappedProductList mappedProductList = ProductSnapshotFile.open(snapshotPath)) {
+                Warehouse mappedWarehouse = new Warehouse(mappedProductList);
+                UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+                List<Product> productsBeforeChange = mappedWarehouse.getProductList();
+
+                assertThat(mappedProductList.position(productId)).isEqualTo(warehouse.getProductList()
+                        .indexOf(warehouse.getAProductForItsId(productId).orElseThrow()));
+                assertThat(mappedProductList.productOrder("sortedProductsPerCategory")).isPresent();
+                assertThat(mappedWarehouse.getSortedProductsForACategory(GALLICA))
+                        .isEqualTo(warehouse.getSortedProductsForACategory(GALLICA));
+                assertThat(mappedWarehouse.getTopRatedProducts(3)).isEqualTo(warehouse.getTopRatedProducts(3));
+                assertThat(mappedWarehouse.getProductsPerCreatedAtYearMonth())
+                        .isEqualTo(warehouse.getProductsPerCreatedAtYearMonth());
+                assertThat(mappedWarehouse.autocompleteProductNames("a", 10))
+                        .isEqualTo(warehouse.autocompleteProductNames("a", 10));
+                assertThat(mappedWarehouse.getNumberOfProductsPerCategory())
+                        .isEqualTo(warehouse.getNumberOfProductsPerCategory());
+
+                Product changedProduct = mappedWarehouse.changeProductNameCategoryRating(productId,
+                        new InputProductData("Aimable Amie", GALLICA, 10.0));
+                mappedWarehouse.addNewProduct(new InputProductData("Tuscany", GALLICA, 8.1));
+
+                assertThat(mappedProductList.numberOfMappedProducts()).isEqualTo(9);
+                assertThat(mappedProductList.productOrder("sortedProductsPerCategory")).isEmpty();
+                assertThat(productsBeforeChange).containsExactlyElementsOf(warehouse.getProductList());
+                assertThat(mappedWarehouse.getProductList()).hasSize(10).contains(changedProduct);
+                assertThat(mappedWarehouse.getAProductForItsId(productId)).contains(changedProduct);
+                assertThat(mappedWarehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(5);
+            }
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Replay a product journal over a snapshot")
+    @MethodSource("productListProvider")
+    void testReplayJournalOverSnapshot(List<Product> productListRecord) throws IOException {
+
+        Path snapshotPath = Files.createTempFile("warehouse", ".snapshot");
+        Path journalPath = Files.createTempFile("warehouse", ".journal");
+        Files.delete(journalPath);
+        try {
+            ProductList productList = new ProductList(productListRecord);
+            List<Product> expectedProducts;
+            try (ProductJournalFile productJournal = ProductJournalFile.open(journalPath, productList)) {
+                Warehouse warehouse = new Warehouse(productList, IdGenerator.threadLocalRandom(), productJournal);
+                warehouse.writeSnapshot(snapshotPath);
+                warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 9.0));
+                warehouse.addNewProducts(List.of(new InputProductData("Tuscany", GALLICA, 8.1),
+                        new InputProductData("Ispahan", DAMASCENE, 9.2)));
+                warehouse.changeProductNameCategoryRating(UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e"),
+                        new InputProductData("Aimable Amie", GALLICA, 10.0));
+                warehouse.removeProduct(productListRecord.getFirst().id());
+                expectedProducts = List.copyOf(warehouse.getProductList());
+            }
+            Files.write(journalPath, new byte[]{42, 0, 0}, StandardOpenOption.APPEND);
+
+            try (MappedProductList mappedProductList = ProductSnapshotFile.open(snapshotPath);
+                 ProductJournalFile productJournal = ProductJournalFile.open(journalPath, mappedProductList)) {
+                Warehouse recoveredWarehouse = new Warehouse(mappedProductList, IdGenerator.threadLocalRandom(),
+                        productJournal);
+                recoveredWarehouse.addNewProduct(new InputProductData("Mme Hardy", DAMASCENE, 9.5));
+
+                assertThat(recoveredWarehouse.getProductList()).startsWith(expectedProducts.toArray(Product[]::new))
+                        .hasSize(11);
+                assertThat(recoveredWarehouse.getAProductForItsId(productListRecord.getFirst().id())).isEmpty();
+                assertThat(recoveredWarehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(4);
+            }
+            try (ProductJournalFile productJournal = ProductJournalFile.open(journalPath,
+                    new ProductList(productListRecord))) {
+                productJournal.truncate();
+            }
+
+            ProductList recoveredProductList = new ProductList(productListRecord);
+            ProductJournalFile.open(journalPath, recoveredProductList).close();
+            assertThat(recoveredProductList.products()).containsExactlyElementsOf(productListRecord);
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Checkpoint a product journal into a snapshot")
+    @MethodSource("productListProvider")
+    void testCheckpointJournalIntoSnapshot(List<Product> productListRecord) throws IOException {
+
+        Path snapshotPath = Files.createTempFile("warehouse", ".snapshot");
+        Path journalPath = Files.createTempFile("warehouse", ".journal");
+        Files.delete(journalPath);
+        try {
+            List<Product> expectedProducts;
+            try (ProductJournalFile productJournal = ProductJournalFile.open(journalPath, new ProductList(List.of()))) {
+                Warehouse warehouse = new Warehouse(new ProductList(productListRecord),
+                        IdGenerator.threadLocalRandom(), productJournal);
+                warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 9.0));
+                long journalSizeBeforeCheckpoint = Files.size(journalPath);
+                warehouse.checkpoint(snapshotPath);
+                long journalSizeAfterCheckpoint = Files.size(journalPath);
+                warehouse.changeProductNameCategoryRating(UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e"),
+                        new InputProductData("Aimable Amie", GALLICA, 10.0));
+                expectedProducts = List.copyOf(warehouse.getProductList());
+
+                assertThat(journalSizeAfterCheckpoint).isLessThan(journalSizeBeforeCheckpoint);
+            }
+
+            try (MappedProductList mappedProductList = ProductSnapshotFile.open(snapshotPath);
+                 ProductJournalFile productJournal = ProductJournalFile.open(journalPath, mappedProductList)) {
+                assertThat(mappedProductList.numberOfMappedProducts()).isEqualTo(9);
+                assertThat(mappedProductList.products()).containsExactlyElementsOf(expectedProducts);
+            }
+            assertThatThrownBy(() -> ProductJournalFile.open(journalPath, new ProductList(List.of())))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("changes unknown product");
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Replay a journaled batch of {0} products, larger than one write chunk")
+    @ValueSource(ints = {50_000})
+    void testReplayLargeJournalBatch(int numberOfProducts) throws IOException {
+
+        Path journalPath = Files.createTempFile("warehouse", ".journal");
+        Files.delete(journalPath);
+        try {
+            List<Product> expectedProducts;
+            try (ProductJournalFile productJournal = ProductJournalFile.open(journalPath,
+                    new ProductList(List.of()))) {
+                Warehouse warehouse = new Warehouse(new ProductList(List.of()), IdGenerator.threadLocalRandom(),
+                        productJournal);
+                warehouse.addNewProducts(IntStream.range(0, numberOfProducts)
+                        .mapToObj(index -> new InputProductData("Rosa " + index, MOSS, index % 10))
+                        .toList());
+                expectedProducts = List.copyOf(warehouse.getProductList());
+            }
+
+            ProductList recoveredProductList = new ProductList(List.of());
+            ProductJournalFile.open(journalPath, recoveredProductList).close();
+            assertThat(recoveredProductList.products()).hasSize(numberOfProducts)
+                    .containsExactlyElementsOf(expectedProducts);
+        } finally {
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Export & import the catalog as CSV and JSON lines")
+    @MethodSource("productListProvider")
+    void testExportAndImportCatalog(List<Product> productListRecord) throws IOException {
+
+        Path catalogPath = Files.createTempFile("warehouse", ".catalog");
+        try {
+            Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+            warehouse.addNewProduct(new InputProductData("Quatre \"Saisons\", blanc \\ mousseux", DAMASCENE, 8.4));
+            List<Product> exportedProducts = warehouse.getProductList();
+
+            for (ProductCatalogFile.Format format : ProductCatalogFile.Format.values()) {
+                warehouse.exportProducts(catalogPath, format);
+                Warehouse importingWarehouse = new Warehouse();
+                long numberOfImportedProducts = importingWarehouse.importProducts(catalogPath, format, true);
+
+                assertThat(numberOfImportedProducts).isEqualTo(exportedProducts.size());
+                assertThat(importingWarehouse.getProductList()).containsExactlyElementsOf(exportedProducts);
+                assertThat(importingWarehouse.getNumberOfProductsPerCategory())
+                        .isEqualTo(warehouse.getNumberOfProductsPerCategory());
+            }
+
+            warehouse.addNewProducts(IntStream.range(0, 25_000)
+                    .mapToObj(index -> new InputProductData("Rosa " + index, MOSS, index % 10))
+                    .toList());
+            warehouse.exportProducts(catalogPath, ProductCatalogFile.Format.CSV);
+            Warehouse importingWarehouse = new Warehouse();
+            ConcurrentWarehouse importingConcurrentWarehouse = new ConcurrentWarehouse(4);
+
+            assertThat(importingWarehouse.importProducts(catalogPath, ProductCatalogFile.Format.CSV, true))
+                    .isEqualTo(warehouse.getProductList().size());
+            assertThat(importingConcurrentWarehouse.importProducts(catalogPath, ProductCatalogFile.Format.CSV, false))
+                    .isEqualTo(warehouse.getProductList().size());
+            assertThat(importingWarehouse.getProductList()).containsExactlyElementsOf(warehouse.getProductList());
+            assertThat(importingConcurrentWarehouse.getNumberOfProductsPerCategory())
+                    .isEqualTo(warehouse.getNumberOfProductsPerCategory());
+        } finally {
+            Files.deleteIfExists(catalogPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Find products with a planned query")
+    @MethodSource("productListProvider")
+    void testFindProducts(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        List<ProductQuery> queries = List.of(
+                ProductQuery.allProducts(),
+                ProductQuery.allProducts().inCategory(GALLICA),
+                ProductQuery.allProducts().inCategory(GALLICA).ratedBetween(5.0, 9.0),
+                ProductQuery.allProducts().ratedBetween(8.0, Double.POSITIVE_INFINITY),
+                ProductQuery.allProducts().createdBetween(LocalDate.of(2024, 1, 1), null),
+                ProductQuery.allProducts().updatedBetween(null, LocalDate.of(2024, 6, 30)),
+                ProductQuery.allProducts().withNamePrefix("R"),
+                ProductQuery.allProducts().withNamePrefix("Ö"),
+                ProductQuery.allProducts().withNamePrefix("ö"),
+                ProductQuery.allProducts().inCategory(RAMBLER).withNamePrefix("n"),
+                ProductQuery.allProducts().inCategory(RAMBLER).withNamePrefix("R")
+                        .sortedBy(Warehouse.SortedProducts.comparingByNameAndId()).limit(2));
+
+        for (ProductQuery query : queries) {
+            Stream<Product> expectedProducts = productListRecord.stream().filter(query.predicate());
+            if (query.sortOrder().isPresent()) {
+                expectedProducts = expectedProducts.sorted(query.sortOrder().get());
+            }
+            List<Product> expected = expectedProducts.limit(query.limit()).toList();
+
+            assertThat(warehouse.findProducts(query)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(warehouse.findProducts(query, Product::id))
+                    .containsExactlyInAnyOrderElementsOf(expected.stream().map(Product::id).toList());
+            assertThat(warehouse.countProductsPer(query, Product::category)).isEqualTo(expected.stream()
+                    .collect(Collectors.groupingBy(Product::category, Collectors.counting())));
+            assertThat(warehouse.explain(query).estimatedProducts()).isGreaterThanOrEqualTo(expected.size());
+        }
+        assertThat(warehouse.findProducts(queries.getLast())).containsExactlyElementsOf(
+                productListRecord.stream().filter(queries.getLast().predicate())
+                        .sorted(Warehouse.SortedProducts.comparingByNameAndId()).limit(2).toList());
+        assertThat(warehouse.findProducts(ProductQuery.allProducts().inCategory(RAMBLER).withNamePrefix("n")))
+                .isNotEmpty()
+                .containsExactlyInAnyOrderElementsOf(
+                        warehouse.findProducts(ProductQuery.allProducts().inCategory(RAMBLER).withNamePrefix("N")));
+        assertThat(warehouse.explain(ProductQuery.allProducts()).isFullScan()).isTrue();
+        assertThat(warehouse.explain(ProductQuery.allProducts().withNamePrefix("Ö")).index())
+                .isEqualTo("name prefix");
+        assertThat(warehouse.explain(queries.get(2)).index()).isEqualTo("rating per category");
+        assertThat(warehouse.explain(queries.get(1)).estimatedProducts())
+                .isEqualTo(warehouse.getNumberOfProductsForACategory(GALLICA));
+    }
+
+    @ParameterizedTest(name = "Find & autocomplete products per case-insensitive name prefix")
+    @MethodSource("productListProvider")
+    void testGetProductsWithNamePrefix(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        warehouse.addNewProduct(new InputProductData("Ölandsros", RUGOSA, 7.5));
+        warehouse.addNewProduct(new InputProductData("rosa Mundi", GALLICA, 8.8));
+        warehouse.addNewProduct(new InputProductData("Rosa Mundi", GALLICA, 8.9));
+        Function<String, List<Product>> expectedProductsWithPrefix = prefix -> warehouse.getProductList().stream()
+                .filter(product -> product.name().toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT)))
+                .toList();
+
+        for (String prefix : List.of("r", "RO", "rosa m", "ö", "Öl", "zzz", "")) {
+            assertThat(warehouse.getProductsWithNamePrefix(prefix))
+                    .containsExactlyInAnyOrderElementsOf(expectedProductsWithPrefix.apply(prefix));
+            assertThat(warehouse.getProductsWithNamePrefix(prefix, 1))
+                    .hasSize(Math.min(1, expectedProductsWithPrefix.apply(prefix).size()));
+        }
+        assertThat(warehouse.autocompleteProductNames("ROSA", 10)).containsExactly("rosa Mundi");
+        assertThat(warehouse.autocompleteProductNames("ö", 10)).containsExactly("Ölandsros");
+
+        Product renamedProduct = warehouse.getProductsWithNamePrefix("Öl").getFirst();
+        warehouse.changeProductNameCategoryRating(renamedProduct.id(), new InputProductData("Hansa", RUGOSA, 7.5));
+
+        assertThat(warehouse.getProductsWithNamePrefix("öl")).isEmpty();
+        assertThat(warehouse.autocompleteProductNames("han", 10)).contains("Hansa");
+    }
+
+    @ParameterizedTest(name = "Serve repeated aggregates from the result cache until the next write")
+    @MethodSource("productListProvider")
+    void testResultCache(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord), IdGenerator.threadLocalRandom(),
+                ProductJournal.none(), QueryExecution.sequential(), new ResultCache(2));
+
+        Map<UUID, List<Product>> productsPerId = warehouse.getProductsPerId();
+        List<Product> topRatedProducts = warehouse.getTopRatedProducts(3);
+
+        assertThat(warehouse.getProductsPerId()).isSameAs(productsPerId);
+        assertThat(warehouse.getTopRatedProducts(3)).isSameAs(topRatedProducts);
+        assertThat(warehouse.getResultCacheStatistics())
+                .isEqualTo(new ResultCache.Statistics(2, 2, 0, 2));
+
+        warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0));
+
+        assertThat(warehouse.getProductsPerId()).isNotSameAs(productsPerId).hasSize(productListRecord.size() + 1);
+        assertThat(warehouse.getTopRatedProducts(3).getFirst().name()).isEqualTo("Hippolyte");
+        assertThat(warehouse.getAllUpdatedProducts()).isEqualTo(new Warehouse(new ProductList(productListRecord))
+                .getAllUpdatedProducts());
+        assertThat(warehouse.getResultCacheStatistics())
+                .isEqualTo(new ResultCache.Statistics(2, 5, 1, 2));
+        assertThat(warehouse.getResultCacheStatistics().hitRate()).isEqualTo(2.0 / 7);
+
+        ProductQuery gallicaQuery = ProductQuery.allProducts().inCategory(GALLICA);
+        assertThat(warehouse.findProducts(gallicaQuery, Product::name)).contains("Hippolyte");
+        assertThat(warehouse.findProducts(gallicaQuery, product -> product.name().length())).hasSize(3);
+        assertThat(warehouse.countProductsPer(gallicaQuery, Product::rating)).containsEntry(10.0, 2L);
+        assertThat(warehouse.findProductsPer(gallicaQuery, product -> product.name().charAt(0))).hasSize(2);
+        assertThat(warehouse.getResultCacheStatistics())
+                .isEqualTo(new ResultCache.Statistics(5, 6, 2, 2));
+    }
+
+    @ParameterizedTest(name = "Snapshots keep answering queries as of the moment they were taken")
+    @MethodSource("productListProvider")
+    void testSnapshot(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        WarehouseSnapshot snapshot = warehouse.snapshot();
+        Product changedProduct = productListRecord.getFirst();
+        long numberOfGallica = warehouse.getNumberOfProductsForACategory(GALLICA);
+
+        warehouse.changeProductNameCategoryRating(changedProduct.id(),
+                new InputProductData("Hippolyte", GALLICA, 10.0));
+        List<Product> newProducts = warehouse.addNewProducts(Stream.generate(() ->
+                new InputProductData("Tuscany", GALLICA, 5.0)).limit(2_000).toList());
+        warehouse.changeProductNameCategoryRating(newProducts.get(1_500).id(),
+                new InputProductData("Tuscany Superb", GALLICA, 6.0));
+
+        assertThat(snapshot.getProductList()).containsExactlyElementsOf(productListRecord);
+        assertThat(snapshot.getAProductForItsId(changedProduct.id())).contains(changedProduct);
+        assertThat(snapshot.getAProductForItsId(newProducts.getFirst().id())).isEmpty();
+        assertThat(snapshot.getNumberOfProductsForACategory(GALLICA)).isEqualTo(numberOfGallica);
+        assertThat(snapshot.getTopRatedProducts(1)).doesNotContain(warehouse.getTopRatedProducts(1).getFirst());
+        assertThat(snapshot.findProducts(ProductQuery.allProducts().inCategory(GALLICA).withNamePrefix("tus")))
+                .isEmpty();
+
+        WarehouseSnapshot newSnapshot = warehouse.snapshot();
+
+        assertThat(newSnapshot.size()).isEqualTo(productListRecord.size() + 2_000);
+        assertThat(newSnapshot.getProductList()).containsExactlyElementsOf(warehouse.getProductList());
+        assertThat(newSnapshot.getNumberOfProductsPerCategory()).isEqualTo(warehouse.getNumberOfProductsPerCategory());
+        assertThat(newSnapshot.getProductsWithNamePrefix("tuscany s")).extracting(Product::name)
+                .containsExactly("Tuscany Superb");
+        assertThat(snapshot.getProductList()).containsExactlyElementsOf(productListRecord);
+
+        warehouse.changeProductNameCategoryRating(newProducts.get(1_500).id(),
+                new InputProductData("Hippolyte", RAMBLER, 6.0));
+
+        assertThat(warehouse.getProductsWithNamePrefix("tuscany s")).isEmpty();
+        assertThat(newSnapshot.getProductsWithNamePrefix("tuscany s")).extracting(Product::name)
+                .containsExactly("Tuscany Superb");
+        assertThat(newSnapshot.getProductsPerCategory().get(GALLICA)).extracting(Product::name)
+                .contains("Tuscany Superb");
+        assertThat(newSnapshot.getProductsCreatedAfter(LocalDate.now().minusDays(1))).hasSize(2_000);
+    }
+
+    @ParameterizedTest(name = "Push added, updated and removed products to subscribers")
+    @MethodSource("productListProvider")
+    void testProductEvents(List<Product> productListRecord) throws InterruptedException {
+
+        try (ProductEventPublisher productEvents = new ProductEventPublisher();
+             ProductEventPublisher slowProductEvents = new ProductEventPublisher(ForkJoinPool.commonPool(), 1)) {
+            Warehouse warehouse = new Warehouse(new ProductList(productListRecord), IdGenerator.threadLocalRandom(),
+                    ProductJournal.none(), QueryExecution.sequential(), new ResultCache(), productEvents);
+            Warehouse slowWarehouse = new Warehouse(new ProductList(productListRecord),
+                    IdGenerator.threadLocalRandom(), ProductJournal.none(), QueryExecution.sequential(),
+                    new ResultCache(), slowProductEvents);
+            BlockingQueue<ProductEvent> events = new LinkedBlockingQueue<>();
+            Set<String> eventThreadNames = ConcurrentHashMap.newKeySet();
+            BlockingQueue<ProductEvent> slowEvents = new LinkedBlockingQueue<>();
+            List<Flow.Subscription> slowSubscription = new ArrayList<>();
+            warehouse.productEvents().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(ProductEvent event) {
+                    eventThreadNames.add(Thread.currentThread().getName());
+                    events.add(event);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            slowWarehouse.productEvents().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    synchronized (slowSubscription) {
+                        slowSubscription.add(subscription);
+                        slowSubscription.notifyAll();
+                    }
+                }
+
+                @Override
+                public void onNext(ProductEvent event) {
+                    slowEvents.add(event);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+
+            warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0));
+            List<Product> newProducts = warehouse.addNewProducts(List.of(new InputProductData("Tuscany", GALLICA, 5.0),
+                    new InputProductData("Félicité", RAMBLER, 7.0)));
+            Product product = productListRecord.getFirst();
+            Product updatedProduct = warehouse.changeProductNameCategoryRating(product.id(),
+                    new InputProductData("Tuscany Superb", GALLICA, 6.0));
+            Product removedProduct = warehouse.removeProduct(newProducts.getFirst().id()).orElseThrow();
+            for (int newProduct = 0; newProduct < 100; newProduct++) {
+                slowWarehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0));
+            }
+
+            List<ProductEvent> eventsResult = new ArrayList<>();
+            while (eventsResult.size() < 5) {
+                eventsResult.add(events.poll(5, TimeUnit.SECONDS));
+            }
+
+            assertThat(eventsResult.getFirst()).isInstanceOf(ProductEvent.Added.class);
+            assertThat(eventsResult.getFirst().product().name()).isEqualTo("Hippolyte");
+            assertThat(eventsResult.subList(1, 3)).extracting(ProductEvent::product).isEqualTo(newProducts);
+            assertThat(eventsResult.get(3)).isEqualTo(new ProductEvent.Updated(4, product, updatedProduct));
+            assertThat(eventsResult.get(4)).isEqualTo(new ProductEvent.Removed(5, removedProduct));
+            assertThat(eventsResult).extracting(ProductEvent::sequence).containsExactly(1L, 2L, 3L, 4L, 5L);
+            assertThat(eventThreadNames).allMatch(name -> name.startsWith("product-events-"));
+            assertThat(productEvents.getDroppedEvents()).isZero();
+            assertThat(slowProductEvents.getNumberOfSubscribers()).isEqualTo(1);
+            assertThat(slowProductEvents.getDroppedEvents()).isGreaterThan(0);
+            assertThat(slowWarehouse.getProductList()).hasSize(productListRecord.size() + 100);
+
+            synchronized (slowSubscription) {
+                while (slowSubscription.isEmpty()) {
+                    slowSubscription.wait();
+                }
+            }
+            slowSubscription.getFirst().request(Long.MAX_VALUE);
+            List<ProductEvent> slowEventsResult = new ArrayList<>();
+            slowEventsResult.add(slowEvents.poll(5, TimeUnit.SECONDS));
+            slowWarehouse.addNewProduct(new InputProductData("Tuscany", GALLICA, 5.0));
+            while (slowEventsResult.isEmpty() || slowEventsResult.getLast().sequence() < 101) {
+                slowEventsResult.add(slowEvents.poll(5, TimeUnit.SECONDS));
+            }
+
+            assertThat(slowEventsResult.getLast().product().name()).isEqualTo("Tuscany");
+            assertThat(slowEventsResult).extracting(ProductEvent::sequence).isSorted();
+            assertThat(slowEventsResult.getLast().sequence() - slowEventsResult.size())
+                    .isEqualTo(slowProductEvents.getDroppedEvents());
+        }
+    }
+
+    @ParameterizedTest(name = "Record call counts, result sizes and latencies per method")
+    @MethodSource("productListProvider")
+    void testWarehouseMetrics(List<Product> productListRecord) throws JMException {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        warehouse.addNewProduct(new InputProductData("Hippolyte", GALLICA, 10.0));
+        warehouse.getTopRatedProducts(3);
+        warehouse.getTopRatedProducts(3);
+        warehouse.getAProductForItsId(UUID.randomUUID());
+
+        WarehouseMetrics metrics = warehouse.getMetrics();
+        WarehouseMetrics.MethodStatistics topRatedStatistics =
+                metrics.getMethodStatistics("getTopRatedProducts").orElseThrow();
+
+        assertThat(topRatedStatistics.calls()).isEqualTo(2);
+        assertThat(topRatedStatistics.totalResultSize()).isEqualTo(6);
+        assertThat(topRatedStatistics.p50LatencyNanos()).isLessThanOrEqualTo(topRatedStatistics.p99LatencyNanos());
+        assertThat(topRatedStatistics.p999LatencyNanos()).isLessThanOrEqualTo(topRatedStatistics.maxLatencyNanos());
+        assertThat(metrics.getMethodStatistics("getAProductForItsId").orElseThrow().totalResultSize()).isZero();
+        assertThat(metrics.getMethodStatistics()).extracting(WarehouseMetrics.MethodStatistics::method)
+                .containsExactly("addNewProduct", "getAProductForItsId", "getTopRatedProducts");
+        assertThat(metrics.getNumberOfProducts()).isEqualTo(productListRecord.size() + 1);
+        assertThat(metrics.getNumberOfProductsPerCategory().get(GALLICA.name()))
+                .isEqualTo(warehouse.getNumberOfProductsForACategory(GALLICA));
+
+        ObjectName objectName = metrics.registerMBean("test-" + UUID.randomUUID());
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            assertThat(mBeanServer.getAttribute(objectName, "NumberOfProducts"))
+                    .isEqualTo((long) productListRecord.size() + 1);
+            assertThat((CompositeData[]) mBeanServer.getAttribute(objectName, "MethodStatistics")).hasSize(4);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+
+        metrics.reset();
+        assertThat(metrics.getMethodStatistics("getTopRatedProducts").orElseThrow().calls()).isZero();
+    }
+
+    @ParameterizedTest(name = "Record a latency histogram for every public warehouse method")
+    @MethodSource("productListProvider")
+    void testEveryPublicMethodIsMeasured(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        ConcurrentWarehouse concurrentWarehouse = new ConcurrentWarehouse(4);
+        concurrentWarehouse.addNewProducts(List.of(new InputProductData("Hippolyte", GALLICA, 10.0)));
+        Product product = productListRecord.getFirst();
+        Product concurrentProduct = concurrentWarehouse.getProductList().getFirst();
+        InputProductData inputProductData = new InputProductData("Tuscany", GALLICA, 9.0);
+        LocalDate date = LocalDate.parse("2024-02-10");
+        ProductQuery query = ProductQuery.allProducts().inCategory(GALLICA);
+
+        warehouse.createNewProduct(inputProductData);
+        warehouse.addNewProduct(inputProductData);
+        warehouse.addNewProducts(List.of(inputProductData));
+        warehouse.getProductList();
+        warehouse.snapshot();
+        warehouse.getProductsPerId();
+        warehouse.getAProductForItsId(product.id());
+        warehouse.changeProductNameCategoryRating(product.id(), inputProductData);
+        warehouse.getProductsPerCreatedAt();
+        warehouse.getProductsPerUpdatedAt();
+        warehouse.getFilteredProductsByDate(date);
+        warehouse.getProductsCreatedAfter(date);
+        warehouse.getProductsCreatedBefore(date);
+        warehouse.getProductsCreatedBetween(date, date.plusMonths(1));
+        warehouse.getProductsUpdatedAfter(date);
+        warehouse.getProductsUpdatedBefore(date);
+        warehouse.getProductsUpdatedBetween(date, date.plusMonths(1));
+        warehouse.getAllUpdatedProducts();
+        warehouse.getProductsPerCategory();
+        warehouse.getSortedProductsForACategory(GALLICA);
+        warehouse.getSortedProductsForACategoryAfter(GALLICA, product, 2);
+        warehouse.getNumberOfProductsPerCategory();
+        warehouse.getNumberOfProductsForACategory(GALLICA);
+        warehouse.getAllCategoriesWithProducts();
+        warehouse.getProductsPerFirstLetter();
+        warehouse.getProductsWithNamePrefix("h");
+        warehouse.autocompleteProductNames("h", 2);
+        warehouse.getProductsPerCreatedAtMonth();
+        warehouse.getProductsForAMonth(Month.FEBRUARY);
+        warehouse.getProductsPerCreatedAtYearMonth();
+        warehouse.getProductsForAYearMonth(YearMonth.from(date));
+        warehouse.getProductsCreatedInLastMonths(YearMonth.from(date), 2);
+        warehouse.getProductsPerCreatedAtWeek();
+        warehouse.getProductsCreatedInLastWeeks(date, 2);
+        warehouse.getProductsCreatedInLastDays(date, 2);
+        warehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(new Warehouse.ThisMonth(Month.FEBRUARY));
+        warehouse.getTopRatedProducts(2);
+        warehouse.getTopRatedProductsForACategory(GALLICA, 2);
+        warehouse.getTopRatedProductsForAMonth(Month.FEBRUARY, 2);
+        warehouse.findProducts(query);
+        warehouse.findProductsPer(query, Product::category);
+        warehouse.countProductsPer(query, Product::category);
+        warehouse.explain(query);
+        warehouse.removeProduct(product.id());
+
+        concurrentWarehouse.createNewProduct(inputProductData);
+        concurrentWarehouse.addNewProduct(inputProductData);
+        concurrentWarehouse.getProductList();
+        concurrentWarehouse.snapshot();
+        concurrentWarehouse.getProductsPerId();
+        concurrentWarehouse.getAProductForItsId(concurrentProduct.id());
+        concurrentWarehouse.changeProductNameCategoryRating(concurrentProduct.id(), inputProductData);
+        concurrentWarehouse.getProductsPerCreatedAt();
+        concurrentWarehouse.getProductsPerUpdatedAt();
+        concurrentWarehouse.getFilteredProductsByDate(date);
+        concurrentWarehouse.getProductsCreatedAfter(date);
+        concurrentWarehouse.getProductsCreatedBefore(date);
+        concurrentWarehouse.getProductsCreatedBetween(date, date.plusMonths(1));
+        concurrentWarehouse.getProductsUpdatedAfter(date);
+        concurrentWarehouse.getProductsUpdatedBefore(date);
+        concurrentWarehouse.getProductsUpdatedBetween(date, date.plusMonths(1));
+        concurrentWarehouse.getAllUpdatedProducts();
+        concurrentWarehouse.getProductsPerCategory();
+        concurrentWarehouse.getSortedProductsForACategory(GALLICA);
+        concurrentWarehouse.getSortedProductsForACategoryAfter(GALLICA, concurrentProduct, 2);
+        concurrentWarehouse.getNumberOfProductsPerCategory();
+        concurrentWarehouse.getNumberOfProductsForACategory(GALLICA);
+        concurrentWarehouse.getAllCategoriesWithProducts();
+        concurrentWarehouse.getProductsPerFirstLetter();
+        concurrentWarehouse.getProductsWithNamePrefix("h");
+        concurrentWarehouse.autocompleteProductNames("h", 2);
+        concurrentWarehouse.getProductsPerCreatedAtMonth();
+        concurrentWarehouse.getProductsForAMonth(Month.FEBRUARY);
+        concurrentWarehouse.getProductsPerCreatedAtYearMonth();
+        concurrentWarehouse.getProductsForAYearMonth(YearMonth.from(date));
+        concurrentWarehouse.getProductsCreatedInLastMonths(YearMonth.from(date), 2);
+        concurrentWarehouse.getProductsPerCreatedAtWeek();
+        concurrentWarehouse.getProductsCreatedInLastWeeks(date, 2);
+        concurrentWarehouse.getProductsCreatedInLastDays(date, 2);
+        concurrentWarehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(
+                new Warehouse.ThisMonth(Month.FEBRUARY));
+        concurrentWarehouse.getTopRatedProducts(2);
+        concurrentWarehouse.getTopRatedProductsForACategory(GALLICA, 2);
+        concurrentWarehouse.getTopRatedProductsForAMonth(Month.FEBRUARY, 2);
+        concurrentWarehouse.findProducts(query);
+        concurrentWarehouse.findProductsPer(query, Product::category);
+        concurrentWarehouse.countProductsPer(query, Product::category);
+        concurrentWarehouse.explain(query);
+        concurrentWarehouse.removeProduct(concurrentProduct.id());
+
+        assertThat(measuredMethods(Warehouse.class)).allSatisfy(method ->
+                assertThat(warehouse.getMetrics().getMethodStatistics(method)).as(method)
+                        .hasValueSatisfying(statistics -> assertThat(statistics.calls()).isPositive()));
+        assertThat(measuredMethods(ConcurrentWarehouse.class)).allSatisfy(method ->
+                assertThat(concurrentWarehouse.getMetrics().getMethodStatistics(method)).as(method)
+                        .hasValueSatisfying(statistics -> assertThat(statistics.calls()).isPositive()));
+    }
+
+    private static Set<String> measuredMethods(Class<?> warehouseClass) {
+        Set<String> unmeasuredMethods = Set.of("writeSnapshot", "checkpoint", "importProducts", "exportProducts",
+                "getResultCacheStatistics", "getMetrics", "productEvents");
+        return Arrays.stream(warehouseClass.getDeclaredMethods())
+                .filter(method -> !Modifier.isStatic(method.getModifiers()) && !method.isSynthetic())
+                .filter(method -> Modifier.isPublic(method.getModifiers()) || method.getName().equals("explain"))
+                .map(Method::getName)
+                .filter(method -> !unmeasuredMethods.contains(method))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    @ParameterizedTest(name = "Striped range queries keep the order and metrics of a single warehouse")
+    @MethodSource("productListProvider")
+    void testConcurrentWarehouseRangeQueries(List<Product> productListRecord) throws IOException {
+
+        Path catalogPath = Files.createTempFile("warehouse", ".catalog");
+        try {
+            Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+            warehouse.exportProducts(catalogPath, ProductCatalogFile.Format.CSV);
+            ConcurrentWarehouse concurrentWarehouse = new ConcurrentWarehouse(4);
+            concurrentWarehouse.importProducts(catalogPath, ProductCatalogFile.Format.CSV, false);
+            LocalDate date = LocalDate.parse("2024-02-10");
+
+            assertThat(concurrentWarehouse.getProductsCreatedAfter(LocalDate.MIN)).extracting(Product::createdAt)
+                    .isSorted()
+                    .containsExactlyElementsOf(warehouse.getProductsCreatedAfter(LocalDate.MIN).stream()
+                            .map(Product::createdAt).toList());
+            assertThat(concurrentWarehouse.getProductsUpdatedBefore(LocalDate.MAX)).extracting(Product::updatedAt)
+                    .containsExactlyElementsOf(warehouse.getProductsUpdatedBefore(LocalDate.MAX).stream()
+                            .map(Product::updatedAt).toList());
+            assertThat(concurrentWarehouse.getProductsCreatedInLastDays(date.plusMonths(8), 365))
+                    .extracting(Product::createdAt).isSorted();
+            assertThat(concurrentWarehouse.getProductsWithNamePrefix("", 3)).extracting(Product::name)
+                    .containsExactlyElementsOf(warehouse.getProductsWithNamePrefix("", 3).stream()
+                            .map(Product::name).toList());
+
+            concurrentWarehouse.getTopRatedProductsForAMonth(Month.FEBRUARY, 2);
+            concurrentWarehouse.getSortedProductsForACategory(RAMBLER, 1, 1);
+            concurrentWarehouse.countProductsPer(ProductQuery.allProducts(), Product::category);
+            concurrentWarehouse.autocompleteProductNames("h", 5);
+
+            assertThat(concurrentWarehouse.getMetrics().getMethodStatistics())
+                    .extracting(WarehouseMetrics.MethodStatistics::method)
+                    .contains("getProductsCreatedAfter", "getProductsUpdatedBefore", "getProductsCreatedInLastDays",
+                            "getProductsWithNamePrefix", "getTopRatedProductsForAMonth",
+                            "getSortedProductsForACategory", "countProductsPer", "autocompleteProductNames");
+
+            Product removedProduct = concurrentWarehouse.getProductsCreatedAfter(LocalDate.MIN).getFirst();
+            assertThat(concurrentWarehouse.removeProduct(removedProduct.id())).contains(removedProduct);
+            assertThat(concurrentWarehouse.removeProduct(removedProduct.id())).isEmpty();
+            assertThat(concurrentWarehouse.getAProductForItsId(removedProduct.id())).isEmpty();
+            assertThat(concurrentWarehouse.getProductList()).hasSize(productListRecord.size() - 1)
+                    .doesNotContain(removedProduct);
+            assertThat(concurrentWarehouse.getNumberOfProductsForACategory(removedProduct.category()))
+                    .isEqualTo(warehouse.getNumberOfProductsForACategory(removedProduct.category()) - 1);
+        } finally {
+            Files.deleteIfExists(catalogPath);
+        }
+    }
+
     @ParameterizedTest(name = "{index} - Group products per attribute")
     @MethodSource("productDataProvider")
     void testGenericGroupingProducts(Function<Product, ?> function, List<Product> productList,
@@ -97,6 +994,44 @@ class WarehouseTest {
         assertThat(groupedTestResult).isEqualTo(countedByProductDataProvider);
     }
 
+    @ParameterizedTest(name = "{index} - Group products per attribute in parallel")
+    @MethodSource("productDataProvider")
+    void testParallelGroupingProducts(Function<Product, ?> function, List<Product> productList,
+                                      Map<?, List<Product>> groupedByProductDataProvider) {
+
+        try (QueryExecution queryExecution = QueryExecution.parallel(4, 1)) {
+            Warehouse warehouse = new Warehouse(new ProductList(productList), IdGenerator.threadLocalRandom(),
+                    ProductJournal.none(), queryExecution);
+
+            Map<?, List<Product>> groupedTestResult =
+                    ReflectionTestUtils.invokeMethod(warehouse, "groupingProducts", function, productList);
+
+            assertThat(groupedTestResult).isEqualTo(groupedByProductDataProvider);
+            assertThat(warehouse.findProductsPer(ProductQuery.allProducts(), function))
+                    .isEqualTo(groupedByProductDataProvider);
+            assertThat(warehouse.getAllUpdatedProducts())
+                    .containsExactlyElementsOf(new Warehouse(new ProductList(productList)).getAllUpdatedProducts());
+        }
+    }
+
+    @ParameterizedTest(name = "{index} - Group and count products per attribute in parallel")
+    @MethodSource("productDataCountingProvider")
+    void testParallelGroupingAndCountingProducts(Function<Product, ?> function, List<Product> productList,
+                                                 Map<?, Long> countedByProductDataProvider) {
+
+        try (QueryExecution queryExecution = QueryExecution.parallel(4, 1)) {
+            Warehouse warehouse = new Warehouse(new ProductList(productList), IdGenerator.threadLocalRandom(),
+                    ProductJournal.none(), queryExecution);
+
+            Map<?, Long> groupedTestResult =
+                    ReflectionTestUtils.invokeMethod(warehouse, "numberOfGroupedProducts", function, productList);
+
+            assertThat(groupedTestResult).isEqualTo(countedByProductDataProvider);
+            assertThat(warehouse.countProductsPer(ProductQuery.allProducts(), function))
+                    .isEqualTo(countedByProductDataProvider);
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     @ParameterizedTest(name = "Group products per id")
     @MethodSource("productListProvider")
@@ -172,6 +1107,21 @@ class WarehouseTest {
         assertThat((singleTestResult.get()).name()).containsOnlyOnce("Wasagaming");
     }
 
+    @ParameterizedTest(name = "No product for an unknown id")
+    @MethodSource("productListProvider")
+    void testGetProductForUnknownId(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+        warehouse.addNewProduct(new InputProductData("Aimable Amie", GALLICA, 10.0));
+
+        Optional<Product> singleTestResult = warehouse.getAProductForItsId(UUID.randomUUID());
+        Product addedProduct = warehouse.getProductList().getLast();
+
+        assertThat(singleTestResult).isEmpty();
+        assertThat(warehouse.getAProductForItsId(addedProduct.id())).contains(addedProduct);
+    }
+
     @ParameterizedTest(name = "Change product name, category & rating")
     @MethodSource("productListProvider")
     void testChangeProductNameCategoryRating(List<Product> productListRecord) {
@@ -204,6 +1154,117 @@ class WarehouseTest {
                 .extracting("updatedAt").isEqualTo(LocalDate.now());
     }
 
+    @ParameterizedTest(name = "Changed product replaces the stored product")
+    @MethodSource("productListProvider")
+    void testChangeProductNameCategoryRatingIsPersisted(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+        UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+        List<Product> productsBeforeChange = warehouse.getProductList();
+
+        Product changedProduct = warehouse.changeProductNameCategoryRating(productId,
+                new InputProductData("Aimable Amie", GALLICA, 10.0));
+
+        assertThat(warehouse.getProductList()).hasSize(8).contains(changedProduct);
+        assertThat(warehouse.getAProductForItsId(productId)).contains(changedProduct);
+        assertThat(warehouse.getProductsPerId().get(productId)).containsOnly(changedProduct);
+        assertThat(warehouse.getProductsPerCategory()).doesNotContainKey(RUGOSA);
+        assertThat(warehouse.getProductsPerCategory().get(GALLICA)).hasSize(3).contains(changedProduct);
+        assertThat(warehouse.getProductsPerFirstLetter()).doesNotContainKey('W');
+        assertThat(warehouse.getNumberOfProductsForACategory(RUGOSA)).isZero();
+        assertThat(warehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(3);
+        assertThat(warehouse.getNumberOfProductsPerCategory()).doesNotContainKey(RUGOSA);
+        assertThat(warehouse.getAllCategoriesWithProducts()).doesNotContain(RUGOSA);
+        assertThat(productsBeforeChange).extracting("name").contains("Wasagaming").doesNotContain("Aimable Amie");
+    }
+
+    @ParameterizedTest(name = "Remove products from every product store")
+    @MethodSource("productListProvider")
+    void testRemoveProduct(List<Product> productListRecord) throws IOException {
+
+        Path snapshotPath = Files.createTempFile("warehouse", ".snapshot");
+        try {
+            new Warehouse(new ProductList(productListRecord)).writeSnapshot(snapshotPath);
+            try (OffHeapProductList offHeapProductList = new OffHeapProductList(productListRecord);
+                 MappedProductList mappedProductList = ProductSnapshotFile.open(snapshotPath)) {
+                for (ProductStore productStore : List.of(new ProductList(productListRecord),
+                        new ColumnarProductList(productListRecord), offHeapProductList, mappedProductList)) {
+                    Warehouse warehouse = new Warehouse(productStore);
+                    UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+                    Product removedProduct = warehouse.getAProductForItsId(productId).orElseThrow();
+                    Product lastProduct = productListRecord.getLast();
+                    Map<Category, List<Product>> productsPerCategory = warehouse.getProductsPerCategory();
+
+                    assertThat(warehouse.removeProduct(productId)).contains(removedProduct);
+                    assertThat(warehouse.removeProduct(productId)).isEmpty();
+                    assertThat(warehouse.removeProduct(lastProduct.id())).contains(lastProduct);
+                    Product addedProduct = warehouse.addNewProducts(
+                            List.of(new InputProductData("Tuscany", RUGOSA, 8.1))).getFirst();
+
+                    List<Product> remainingProducts = productListRecord.stream()
+                            .filter(product -> !product.equals(removedProduct) && !product.equals(lastProduct))
+                            .toList();
+                    Warehouse reindexedWarehouse = new Warehouse(new ProductList(warehouse.getProductList()));
+
+                    assertThat(warehouse.getProductList()).hasSize(productListRecord.size() - 1)
+                            .containsAll(remainingProducts).contains(addedProduct);
+                    remainingProducts.forEach(product ->
+                            assertThat(warehouse.getAProductForItsId(product.id())).contains(product));
+                    assertThat(warehouse.getAProductForItsId(productId)).isEmpty();
+                    assertThat(warehouse.getAProductForItsId(lastProduct.id())).isEmpty();
+                    assertThat(warehouse.getProductsPerCategory())
+                            .isEqualTo(reindexedWarehouse.getProductsPerCategory());
+                    assertThat(warehouse.getProductsPerCategory().get(RUGOSA)).containsExactly(addedProduct);
+                    assertThat(warehouse.getProductsPerCreatedAt())
+                            .isEqualTo(reindexedWarehouse.getProductsPerCreatedAt());
+                    assertThat(warehouse.getSortedProductsForACategory(RAMBLER))
+                            .isEqualTo(reindexedWarehouse.getSortedProductsForACategory(RAMBLER));
+                    assertThat(warehouse.getTopRatedProducts(3)).isEqualTo(reindexedWarehouse.getTopRatedProducts(3));
+                    assertThat(warehouse.getProductsWithNamePrefix(""))
+                            .isEqualTo(reindexedWarehouse.getProductsWithNamePrefix(""));
+                    assertThat(warehouse.getNumberOfProductsPerCategory())
+                            .isEqualTo(reindexedWarehouse.getNumberOfProductsPerCategory());
+                    assertThat(warehouse.getNumberOfProductsForACategory(DAMASCENE)).isZero();
+                    assertThat(productsPerCategory.get(RUGOSA)).containsExactly(removedProduct);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+        }
+    }
+
+    @ParameterizedTest(name = "Results returned before a change keep their products")
+    @MethodSource("productListProvider")
+    void testResultsAreUnchangedByLaterChanges(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+        Map<Category, List<Product>> productsPerCategory = warehouse.getProductsPerCategory();
+        Map<LocalDate, List<Product>> productsPerCreatedAt = warehouse.getProductsPerCreatedAt();
+        NavigableMap<YearMonth, List<Product>> productsPerCreatedAtYearMonth =
+                warehouse.getProductsPerCreatedAtYearMonth();
+        List<Product> productsForSeptember = warehouse.getProductsForAMonth(SEPTEMBER);
+        List<Product> rugosaProducts = List.copyOf(productsPerCategory.get(RUGOSA));
+        List<Product> septemberProducts = List.copyOf(productsForSeptember);
+        List<List<Product>> productsPerYearMonth = productsPerCreatedAtYearMonth.values().stream()
+                .map(List::copyOf)
+                .toList();
+        Map<LocalDate, List<Product>> productsPerCreatedAtCopy = new HashMap<>();
+        productsPerCreatedAt.forEach((createdAt, products) -> productsPerCreatedAtCopy.put(createdAt,
+                List.copyOf(products)));
+
+        warehouse.changeProductNameCategoryRating(productId, new InputProductData("Aimable Amie", GALLICA, 10.0));
+        warehouse.addNewProduct(new InputProductData("Tuscany", RUGOSA, 8.1));
+
+        assertThat(productsPerCategory.get(RUGOSA)).containsExactlyElementsOf(rugosaProducts);
+        assertThat(productsPerCreatedAt).isEqualTo(productsPerCreatedAtCopy);
+        assertThat(productsPerCreatedAtYearMonth.values()).containsExactlyElementsOf(productsPerYearMonth);
+        assertThat(productsForSeptember).containsExactlyElementsOf(septemberProducts);
+        assertThat(warehouse.getProductsPerCategory().get(RUGOSA)).extracting(Product::name)
+                .contains("Tuscany").doesNotContain("Wasagaming");
+    }
+
     @ParameterizedTest(name = "Record compare two dates")
     @MethodSource("dateProvider")
     void testProductDatesToCompareRecord(LocalDate dateOne, LocalDate dateTwo, boolean resultExpected) {
@@ -240,6 +1301,29 @@ class WarehouseTest {
                 .doesNotContain("Duchesse De Montebello");
     }
 
+    @ParameterizedTest(name = "Products created & updated in a date range")
+    @MethodSource("productListProvider")
+    void testGetProductsInDateRange(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+
+        assertThat(warehouse.getProductsCreatedAfter(LocalDate.parse("2024-09-01")))
+                .extracting("name").containsExactlyInAnyOrder("Wasagaming", "Hippolyte");
+        assertThat(warehouse.getProductsCreatedBefore(LocalDate.parse("2024-06-10")))
+                .extracting("name").containsExactlyInAnyOrder("Lyckefund", "Helenae Hybrida", "Duchesse De Montebello");
+        assertThat(warehouse.getProductsCreatedBetween(LocalDate.parse("2024-06-10"), LocalDate.parse("2024-09-15")))
+                .extracting("name").containsExactly("New Dawn", "Louise Bugnet", "Ispahan", "Wasagaming");
+        assertThat(warehouse.getProductsCreatedBetween(LocalDate.parse("2024-09-15"), LocalDate.parse("2024-06-10")))
+                .isEmpty();
+        assertThat(warehouse.getProductsUpdatedAfter(LocalDate.parse("2024-09-04")))
+                .extracting("name").containsExactlyInAnyOrder("Hippolyte", "Wasagaming");
+        assertThat(warehouse.getProductsUpdatedBefore(LocalDate.parse("2024-06-04")))
+                .extracting("name").containsExactlyInAnyOrder("Lyckefund", "New Dawn");
+        assertThat(warehouse.getProductsUpdatedBetween(LocalDate.parse("2024-06-04"), LocalDate.parse("2024-07-19")))
+                .extracting("name").containsExactly("Duchesse De Montebello", "Helenae Hybrida");
+    }
+
     @ParameterizedTest(name = "Filter all updated products")
     @MethodSource("productListProvider")
     void testGetAllUpdatedProducts(List<Product> productListRecord) {
@@ -283,6 +1367,58 @@ class WarehouseTest {
                 .containsSequence("Helenae Hybrida", "Lyckefund", "New Dawn");
     }
 
+    @ParameterizedTest(name = "Page sorted products for a category")
+    @MethodSource("productListProvider")
+    void testGetSortedProductsForACategoryPaged(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+        warehouse.addNewProduct(new InputProductData("Albertine", RAMBLER, 8.0));
+
+        List<Product> firstPageResult = warehouse.getSortedProductsForACategory(RAMBLER, 0, 2).product();
+        List<Product> secondPageResult = warehouse.getSortedProductsForACategory(RAMBLER, 2, 2).product();
+        List<Product> cursorPageResult =
+                warehouse.getSortedProductsForACategoryAfter(RAMBLER, firstPageResult.getLast(), 10).product();
+
+        assertThat(firstPageResult).extracting("name").containsExactly("Albertine", "Helenae Hybrida");
+        assertThat(secondPageResult).extracting("name").containsExactly("Lyckefund", "New Dawn");
+        assertThat(cursorPageResult).extracting("name").containsExactly("Lyckefund", "New Dawn");
+        assertThat(warehouse.getSortedProductsForACategory(RAMBLER, 4, 2).product()).isEmpty();
+        assertThat(warehouse.getSortedProductsForACategory(MOSS, 0, 2).product()).isEmpty();
+    }
+
+    @ParameterizedTest(name = "Page deep into {0} sorted products after changing a third of them")
+    @ValueSource(ints = {5_000})
+    void testGetSortedProductsForACategoryDeepPages(int numberOfProducts) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(List.of()), IdGenerator.threadLocalRandom());
+        List<Product> addedProducts = warehouse.addNewProducts(IntStream.range(0, numberOfProducts)
+                .mapToObj(index -> new InputProductData("Rosa " + (index * 7919 % numberOfProducts),
+                        index % 2 == 0 ? MOSS : GALLICA, index % 10))
+                .toList());
+        for (int index = 0; index < numberOfProducts; index += 3) {
+            warehouse.changeProductNameCategoryRating(addedProducts.get(index).id(),
+                    new InputProductData("Rosa changed " + index, index % 4 == 0 ? GALLICA : MOSS, index % 7));
+        }
+
+        List<Product> expectedProducts = warehouse.getProductList().stream()
+                .filter(product -> product.category() == MOSS)
+                .sorted(Warehouse.SortedProducts.comparingByNameAndId())
+                .toList();
+        List<Product> expectedTopRated = warehouse.getProductList().stream()
+                .filter(product -> product.category() == MOSS)
+                .sorted(TopRatedProducts.comparingByRatingAndCreatedAt())
+                .limit(100)
+                .toList();
+
+        assertThat(warehouse.getSortedProductsForACategory(MOSS).product()).isEqualTo(expectedProducts);
+        assertThat(warehouse.getSortedProductsForACategory(MOSS, 1_000, 50).product())
+                .isEqualTo(expectedProducts.subList(1_000, 1_050));
+        assertThat(warehouse.getSortedProductsForACategoryAfter(MOSS, expectedProducts.get(999), 50).product())
+                .isEqualTo(expectedProducts.subList(1_000, 1_050));
+        assertThat(warehouse.getTopRatedProductsForACategory(MOSS, 100)).isEqualTo(expectedTopRated);
+    }
+
     @ParameterizedTest(name = "Number of products per category")
     @MethodSource("productListProvider")
     void testGetNumberOfProductsPerCategory(List<Product> productListRecord) {
@@ -291,7 +1427,6 @@ class WarehouseTest {
         Warehouse warehouse = new Warehouse(productList);
 
         Map<Category, Long> numberOfProductsResult = warehouse.getNumberOfProductsPerCategory();
-        System.out.println(numberOfProductsResult);
 
         assertThat(numberOfProductsResult).isNotNull();
         assertThat(numberOfProductsResult.size()).isEqualTo(5);
@@ -361,6 +1496,24 @@ class WarehouseTest {
                 .mapToInt(List::size).summaryStatistics().getSum()).isEqualTo(8);
     }
 
+    @ParameterizedTest(name = "Grouped products stay current after adding a product")
+    @MethodSource("productListProvider")
+    void testGroupedProductsAfterAddNewProduct(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+
+        warehouse.addNewProduct(new InputProductData("Belle De Crécy", GALLICA, 9.5));
+        Product addedProduct = warehouse.getProductList().getLast();
+
+        assertThat(warehouse.getProductsPerCategory().get(GALLICA)).hasSize(3).contains(addedProduct);
+        assertThat(warehouse.getProductsPerCreatedAt().get(LocalDate.now())).contains(addedProduct);
+        assertThat(warehouse.getProductsPerUpdatedAt().get(LocalDate.now())).contains(addedProduct);
+        assertThat(warehouse.getProductsPerCreatedAtMonth().get(LocalDate.now().getMonth())).contains(addedProduct);
+        assertThat(warehouse.getProductsPerFirstLetter().get('B')).containsOnly(addedProduct);
+        assertThat(warehouse.getNumberOfProductsForACategory(GALLICA)).isEqualTo(3);
+    }
+
     @ParameterizedTest(name = "Grouped products per month by createdAt")
     @MethodSource("productListProvider")
     void testGetProductsPerCreatedAtMonth(List<Product> productListRecord) {
@@ -419,6 +1572,36 @@ class WarehouseTest {
                 .doesNotContain("New Dawn", "Lyckefund", "Helenae Hybrida", "Duchesse De Montebello");
     }
 
+    @ParameterizedTest(name = "Products per year & month, per week & in rolling windows")
+    @MethodSource("productListProvider")
+    void testGetProductsPerCreatedAtYearMonth(List<Product> productListRecord) {
+
+        List<Product> productsOverTwoYears = new ArrayList<>(productListRecord);
+        productsOverTwoYears.add(new Product(UUID.fromString("0b3f4c1e-4d36-4c56-9d2f-1d1b0b6e9a11"), "Tuscany",
+                GALLICA, 8.1, LocalDate.parse("2023-09-20"), LocalDate.parse("2023-09-20")));
+        ProductList productList = new ProductList(productsOverTwoYears);
+        Warehouse warehouse = new Warehouse(productList);
+
+        Map<YearMonth, List<Product>> productsPerYearMonthResult = warehouse.getProductsPerCreatedAtYearMonth();
+
+        assertThat(productsPerYearMonthResult).containsOnlyKeys(YearMonth.parse("2023-09"),
+                YearMonth.parse("2024-02"), YearMonth.parse("2024-06"), YearMonth.parse("2024-09"));
+        assertThat(List.copyOf(productsPerYearMonthResult.keySet())).isSorted();
+        assertThat(warehouse.getProductsForAYearMonth(YearMonth.parse("2024-09"))).hasSize(4);
+        assertThat(warehouse.getProductsForAYearMonth(YearMonth.parse("2023-09")))
+                .extracting("name").containsOnly("Tuscany");
+        assertThat(warehouse.getProductsForAMonth(SEPTEMBER)).hasSize(5);
+        assertThat(warehouse.getProductsCreatedInLastMonths(YearMonth.parse("2024-09"), 4))
+                .extracting("name").containsExactlyInAnyOrder("New Dawn", "Hippolyte", "Wasagaming",
+                        "Louise Bugnet", "Ispahan");
+        assertThat(warehouse.getProductsCreatedInLastMonths(YearMonth.parse("2024-09"), 0)).isEmpty();
+        assertThat(warehouse.getProductsPerCreatedAtWeek()).containsKey(LocalDate.parse("2024-09-16"));
+        assertThat(warehouse.getProductsCreatedInLastWeeks(LocalDate.parse("2024-09-17"), 1))
+                .extracting("name").containsOnly("Hippolyte");
+        assertThat(warehouse.getProductsCreatedInLastDays(LocalDate.parse("2024-09-16"), 2))
+                .extracting("name").containsExactly("Wasagaming", "Hippolyte");
+    }
+
     @ParameterizedTest(name = "Sort products with max rating for a month by createdAt")
     @MethodSource("productListProvider")
     void testGetSortedProductsWithMaxRatingForThisMonth(List<Product> productListRecord) {
@@ -440,6 +1623,58 @@ class WarehouseTest {
                 .containsSequence("Hippolyte", "Louise Bugnet");
     }
 
+    @ParameterizedTest(name = "No products with max rating for a month without products")
+    @MethodSource("productListProvider")
+    void testGetSortedProductsWithMaxRatingForAnEmptyMonth(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+
+        List<Product> sortedTestResult = warehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(
+                new Warehouse.ThisMonth(Month.DECEMBER));
+
+        assertThat(sortedTestResult).isNotNull().isEmpty();
+    }
+
+    @ParameterizedTest(name = "Top rated products globally, per category & per month")
+    @MethodSource("productListProvider")
+    void testGetTopRatedProducts(List<Product> productListRecord) {
+
+        ProductList productList = new ProductList(productListRecord);
+        Warehouse warehouse = new Warehouse(productList);
+        UUID productId = UUID.fromString("e1c63601-999c-48d8-8900-cbc4b870db2e");
+        warehouse.changeProductNameCategoryRating(productId, new InputProductData("Wasagaming", RUGOSA, 10.0));
+
+        assertThat(warehouse.getTopRatedProducts(4)).extracting("name")
+                .containsExactly("Hippolyte", "Wasagaming", "Louise Bugnet", "Ispahan");
+        assertThat(warehouse.getTopRatedProductsForACategory(RAMBLER, 2)).extracting("name")
+                .containsExactly("New Dawn", "Lyckefund");
+        assertThat(warehouse.getTopRatedProductsForAMonth(Month.FEBRUARY, 10)).extracting("name")
+                .containsExactly("Duchesse De Montebello", "Lyckefund", "Helenae Hybrida");
+        assertThat(warehouse.getSortedProductsWithMaxRatingForThisMonthByCreatedAt(new Warehouse.ThisMonth(SEPTEMBER)))
+                .extracting("name").containsExactly("Hippolyte", "Wasagaming", "Louise Bugnet");
+        assertThat(warehouse.getTopRatedProducts(0)).isEmpty();
+        assertThat(warehouse.getTopRatedProductsForACategory(MOSS, 3)).isEmpty();
+    }
+
+    @ParameterizedTest(name = "Top rated products when asking for more products than the catalog holds")
+    @MethodSource("productListProvider")
+    void testGetTopRatedProductsBeyondCatalogSize(List<Product> productListRecord) {
+
+        Warehouse warehouse = new Warehouse(new ProductList(productListRecord));
+        ConcurrentWarehouse concurrentWarehouse = new ConcurrentWarehouse(4);
+        concurrentWarehouse.addNewProducts(productListRecord.stream()
+                .map(product -> new InputProductData(product.name(), product.category(), product.rating()))
+                .toList());
+
+        assertThat(warehouse.getTopRatedProducts(Integer.MAX_VALUE)).hasSize(productListRecord.size())
+                .isEqualTo(warehouse.getTopRatedProducts(productListRecord.size() + 1));
+        assertThat(warehouse.getTopRatedProductsForACategory(RAMBLER, Integer.MAX_VALUE)).hasSize(3);
+        assertThat(warehouse.getTopRatedProductsForAMonth(Month.FEBRUARY, Integer.MAX_VALUE)).hasSize(3);
+        assertThat(concurrentWarehouse.getTopRatedProducts(Integer.MAX_VALUE)).hasSize(productListRecord.size());
+        assertThat(concurrentWarehouse.getTopRatedProductsForACategory(RAMBLER, Integer.MAX_VALUE)).hasSize(3);
+    }
+
     static Stream<Arguments> inputProductDataProvider() {
         return Stream.of(
                 arguments("Hippolyte", GALLICA, 10.0),